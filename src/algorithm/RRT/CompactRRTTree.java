@@ -0,0 +1,391 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package algorithm.RRT;
+
+import java.util.Arrays;
+import util.VectorUtil;
+import world.uav.UAVPath;
+
+/** This is a compact representation of RRTTree, where the vertices are stored in primitive arrays instead of RRTNode objects.
+ * The i-th vertex is identified by index i. The arrays and the spatial index are kept and reused after reset, so that building a tree
+ * many times in one planning does not allocate any node.
+ *
+ * @author Yulin_Zhang
+ */
+public class CompactRRTTree {
+
+    public static final int NIL = -1;
+
+    private float[] x_coords;
+    private float[] y_coords;
+    private double[] angles;
+    private int[] parents;
+    private float[] path_lengths_from_root;
+    private int[] expected_time_steps;
+    /**
+     * the children of a vertex are linked by next_siblings, starting from first_children.
+     *
+     */
+    private int[] first_children;
+    private int[] next_siblings;
+    private int node_num = 0;
+    /**
+     * an edge longer than step_length takes more than one time step, and it is split into steps in the path generated.
+     * 0 means every edge takes one time step.
+     *
+     */
+    private float step_length = 0;
+    private int last_time_added = NIL;
+
+    /**
+     * spatial index of the vertices, the k-th vertex is the k-th point in the index.
+     *
+     */
+    private RRTKdTree spatial_index;
+
+    /**
+     * buffer reused by generatePath to trace the vertices from the last added one back to the root.
+     *
+     */
+    private int[] trace_buffer = new int[64];
+
+    /**
+     * the path generated lately, and the vertex of each of its waypoints (-1 for the waypoints splitting an edge).
+     *
+     */
+    private UAVPath last_path;
+    private int[] path_vertices = new int[64];
+    private int path_vertex_num = 0;
+
+    public CompactRRTTree() {
+        this(256);
+    }
+
+    public CompactRRTTree(int init_capacity) {
+        init_capacity = Math.max(init_capacity, 16);
+        x_coords = new float[init_capacity];
+        y_coords = new float[init_capacity];
+        angles = new double[init_capacity];
+        parents = new int[init_capacity];
+        path_lengths_from_root = new float[init_capacity];
+        expected_time_steps = new int[init_capacity];
+        first_children = new int[init_capacity];
+        next_siblings = new int[init_capacity];
+        spatial_index = new RRTKdTree(init_capacity);
+    }
+
+    /** remove all the vertices but keep the allocated buffers.
+     *
+     */
+    public void reset() {
+        node_num = 0;
+        last_time_added = NIL;
+        last_path = null;
+        spatial_index.reset();
+    }
+
+    /** add the root of the tree, the tree is reset before.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @param current_angle
+     * @return index of the root
+     */
+    public int addRoot(float coordinate_x, float coordinate_y, double current_angle) {
+        reset();
+        int root = appendVertex(coordinate_x, coordinate_y);
+        angles[root] = current_angle;
+        parents[root] = NIL;
+        next_siblings[root] = NIL;
+        path_lengths_from_root[root] = 0;
+        expected_time_steps[root] = 0;
+        return root;
+    }
+
+    /** add a vertex as a child of the parent, its angle, path length and expected time step are derived from the parent.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @param parent
+     * @return index of the new vertex
+     */
+    public int addNode(float coordinate_x, float coordinate_y, int parent) {
+        int child = appendVertex(coordinate_x, coordinate_y);
+        float delta_x = coordinate_x - x_coords[parent];
+        float delta_y = coordinate_y - y_coords[parent];
+        angles[child] = VectorUtil.getAngleOfVectorRelativeToXCoordinate(delta_x, delta_y);
+        parents[child] = parent;
+        next_siblings[child] = first_children[parent];
+        first_children[parent] = child;
+        float edge_length = (float) Math.sqrt(delta_x * delta_x + delta_y * delta_y);
+        path_lengths_from_root[child] = path_lengths_from_root[parent] + edge_length;
+        expected_time_steps[child] = expected_time_steps[parent] + stepsOfEdge(edge_length);
+        return child;
+    }
+
+    /** move the vertex under the new parent, the path length and expected time step of its subtree are updated.
+     *
+     * @param child
+     * @param new_parent
+     */
+    public void changeParent(int child, int new_parent) {
+        int old_parent = parents[child];
+        if (first_children[old_parent] == child) {
+            first_children[old_parent] = next_siblings[child];
+        } else {
+            int sibling = first_children[old_parent];
+            while (next_siblings[sibling] != child) {
+                sibling = next_siblings[sibling];
+            }
+            next_siblings[sibling] = next_siblings[child];
+        }
+        parents[child] = new_parent;
+        next_siblings[child] = first_children[new_parent];
+        first_children[new_parent] = child;
+        float delta_x = x_coords[child] - x_coords[new_parent];
+        float delta_y = y_coords[child] - y_coords[new_parent];
+        angles[child] = VectorUtil.getAngleOfVectorRelativeToXCoordinate(delta_x, delta_y);
+
+        //update the subtree, the buffer is used as the traversal stack
+        int stack_top = 0;
+        trace_buffer[stack_top++] = child;
+        while (stack_top > 0) {
+            int node = trace_buffer[--stack_top];
+            int parent = parents[node];
+            delta_x = x_coords[node] - x_coords[parent];
+            delta_y = y_coords[node] - y_coords[parent];
+            float edge_length = (float) Math.sqrt(delta_x * delta_x + delta_y * delta_y);
+            path_lengths_from_root[node] = path_lengths_from_root[parent] + edge_length;
+            expected_time_steps[node] = expected_time_steps[parent] + stepsOfEdge(edge_length);
+            for (int grandchild = first_children[node]; grandchild != NIL; grandchild = next_siblings[grandchild]) {
+                if (stack_top == trace_buffer.length) {
+                    trace_buffer = Arrays.copyOf(trace_buffer, stack_top * 2);
+                }
+                trace_buffer[stack_top++] = grandchild;
+            }
+        }
+    }
+
+    /** number of time steps to fly along an edge.
+     *
+     * @param edge_length
+     * @return
+     */
+    public int stepsOfEdge(float edge_length) {
+        if (step_length <= 0) {
+            return 1;
+        }
+        //tolerate the rounding error of the edges extended by exactly one step
+        return Math.max(1, (int) Math.ceil(edge_length / step_length - 1e-3));
+    }
+
+    private int appendVertex(float coordinate_x, float coordinate_y) {
+        ensureCapacity(node_num + 1);
+        int index = node_num++;
+        x_coords[index] = coordinate_x;
+        y_coords[index] = coordinate_y;
+        spatial_index.insert(coordinate_x, coordinate_y);
+        first_children[index] = NIL;
+        last_time_added = index;
+        return index;
+    }
+
+    /** find the vertex nearest to the given coordinate with the spatial index.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @return -1 if the tree is empty
+     */
+    public int getNearestNode(float coordinate_x, float coordinate_y) {
+        return spatial_index.nearest(coordinate_x, coordinate_y);
+    }
+
+    /** find the vertex nearest to the given coordinate by linear scanning.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @return -1 if the tree is empty
+     */
+    public int getNearestNodeByScanning(float coordinate_x, float coordinate_y) {
+        int nearest_node = NIL;
+        float min_dist_square = Float.MAX_VALUE;
+        for (int i = 0; i < node_num; i++) {
+            float delta_x = x_coords[i] - coordinate_x;
+            float delta_y = y_coords[i] - coordinate_y;
+            float dist_square = delta_x * delta_x + delta_y * delta_y;
+            if (dist_square < min_dist_square) {
+                min_dist_square = dist_square;
+                nearest_node = i;
+            }
+        }
+        return nearest_node;
+    }
+
+    /** find the vertices within the radius of the given coordinate.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @param radius
+     * @param result buffer of the vertices found, the vertices beyond its length are dropped
+     * @return number of vertices stored in result
+     */
+    public int getNodesWithinRadius(float coordinate_x, float coordinate_y, float radius, int[] result) {
+        return spatial_index.withinRadius(coordinate_x, coordinate_y, radius, result);
+    }
+
+    /** generate the path from the root to the vertex added lately.
+     *
+     * @return
+     */
+    public UAVPath generatePath() {
+        return generatePath(last_time_added);
+    }
+
+    /** generate the path from the root to the given vertex.
+     *
+     * @param end_node
+     * @return
+     */
+    public UAVPath generatePath(int end_node) {
+        UAVPath path_found = new UAVPath();
+        last_path = path_found;
+        path_vertex_num = 0;
+        if (end_node == NIL) {
+            return path_found;
+        }
+        int depth = 0;
+        for (int node = end_node; node != NIL; node = parents[node]) {
+            if (depth == trace_buffer.length) {
+                trace_buffer = Arrays.copyOf(trace_buffer, depth * 2);
+            }
+            trace_buffer[depth++] = node;
+        }
+        for (int i = depth - 1; i >= 0; i--) {
+            int node = trace_buffer[i];
+            int parent = parents[node];
+            if (parent != NIL) {
+                //split the edge taking several time steps
+                int steps = expected_time_steps[node] - expected_time_steps[parent];
+                for (int step = 1; step < steps; step++) {
+                    float ratio = (float) step / steps;
+                    recordPathVertex(path_found.getWaypointNum(), NIL);
+                    path_found.addWaypointToEnd(x_coords[parent] + (x_coords[node] - x_coords[parent]) * ratio, y_coords[parent] + (y_coords[node] - y_coords[parent]) * ratio, angles[node]);
+                }
+            }
+            recordPathVertex(path_found.getWaypointNum(), node);
+            path_found.addWaypointToEnd(x_coords[node], y_coords[node], angles[node]);
+        }
+        return path_found;
+    }
+
+    private void recordPathVertex(int waypoint_index, int node) {
+        if (waypoint_index == path_vertices.length) {
+            path_vertices = Arrays.copyOf(path_vertices, waypoint_index * 2);
+        }
+        path_vertices[waypoint_index] = node;
+        path_vertex_num = waypoint_index + 1;
+    }
+
+    /** find the vertex of the waypoint, if the path is the one generated lately.
+     *
+     * @param path
+     * @param waypoint_index
+     * @return -1 if the path is not generated from this tree lately, or the waypoint is not a vertex
+     */
+    public int getPathVertex(UAVPath path, int waypoint_index) {
+        if (path == null || path != last_path || waypoint_index < 0) {
+            return NIL;
+        }
+        if (waypoint_index >= path_vertex_num) {
+            //the waypoints appended after generating (the goal) are not vertices
+            return NIL;
+        }
+        return path_vertices[waypoint_index];
+    }
+
+    public int getNodeCount() {
+        return node_num;
+    }
+
+    public float getX(int index) {
+        return x_coords[index];
+    }
+
+    public float getY(int index) {
+        return y_coords[index];
+    }
+
+    public double getCurrent_angle(int index) {
+        return angles[index];
+    }
+
+    public int getParent(int index) {
+        return parents[index];
+    }
+
+    public float getStep_length() {
+        return step_length;
+    }
+
+    public void setStep_length(float step_length) {
+        this.step_length = step_length;
+    }
+
+    public int getFirstChild(int index) {
+        return first_children[index];
+    }
+
+    public int getNextSibling(int index) {
+        return next_siblings[index];
+    }
+
+    public float getPath_lenght_from_root(int index) {
+        return path_lengths_from_root[index];
+    }
+
+    public int getExpected_time_step(int index) {
+        return expected_time_steps[index];
+    }
+
+    public int getLast_time_added() {
+        return last_time_added;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= x_coords.length) {
+            return;
+        }
+        int new_capacity = Math.max(capacity, x_coords.length * 2);
+        x_coords = Arrays.copyOf(x_coords, new_capacity);
+        y_coords = Arrays.copyOf(y_coords, new_capacity);
+        angles = Arrays.copyOf(angles, new_capacity);
+        parents = Arrays.copyOf(parents, new_capacity);
+        path_lengths_from_root = Arrays.copyOf(path_lengths_from_root, new_capacity);
+        expected_time_steps = Arrays.copyOf(expected_time_steps, new_capacity);
+        first_children = Arrays.copyOf(first_children, new_capacity);
+        next_siblings = Arrays.copyOf(next_siblings, new_capacity);
+    }
+}
@@ -0,0 +1,165 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package algorithm.RRT;
+
+import java.util.ArrayList;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import util.DistanceUtil;
+import util.ParallelUtil;
+import util.RandomUtil;
+import world.uav.UAVPath;
+
+/** This runs the restarts of rrt planning concurrently, each restart owns a copy of the planner, and the shortest path is kept.
+ * A restart whose path does not reach the target is retried, and the trap times of the sequential planning in Attacker are shared out among the restarts.
+ * Each restart draws from its own random stream and the paths are chosen in the order of restarts, 
+ * so the result does not depend on the scheduling of threads unless the early stop is enabled.
+ *
+ * @author Yulin_Zhang
+ */
+public class ParallelRRTPlanner {
+
+    /**
+     * planners of the restarts, which are reused with their trees in the next planning.
+     *
+     */
+    private ArrayList<RRTAlg> rrt_algs = new ArrayList<RRTAlg>();
+    private RRTAlg best_rrt_alg;
+    private long random_seed;
+
+    /** 
+     *
+     * @param random_seed the random source of the i-th restart is the i-th stream derived from this seed
+     */
+    public ParallelRRTPlanner(long random_seed) {
+        this.random_seed = random_seed;
+    }
+
+    /** plan with the given number of restarts.
+     *
+     * @param prototype the planner whose settings are copied to the restarts
+     * @param restart_times
+     * @param max_trap_times total times of retries for the restarts failing to reach the target
+     * @param init_coordinate
+     * @param current_angle
+     * @param target_coordinate
+     * @param early_stop_path_ratio the restarts are cancelled once a path to the target no longer than this ratio of the straight-line distance is found, 0 means never cancelled
+     * @return the shortest path reaching the target, or the shortest path if none reaches it
+     */
+    public UAVPath plan(RRTAlg prototype, int restart_times, int max_trap_times, float[] init_coordinate, double current_angle, float[] target_coordinate, float early_stop_path_ratio) {
+        float early_stop_path_length = early_stop_path_ratio * DistanceUtil.distanceBetween(init_coordinate, target_coordinate);
+        AtomicBoolean cancel_flag = new AtomicBoolean(false);
+
+        ArrayList<RestartTask> tasks = new ArrayList<RestartTask>(restart_times);
+        for (int i = 0; i < restart_times; i++) {
+            if (i == rrt_algs.size()) {
+                rrt_algs.add(newRestartAlg(prototype, i));
+            } else if (rrt_algs.get(i).getClass() != prototype.getClass()) {
+                rrt_algs.set(i, newRestartAlg(prototype, i));
+            }
+            RRTAlg rrt_alg = rrt_algs.get(i);
+            rrt_alg.copySettings(prototype);
+            rrt_alg.setCancel_flag(cancel_flag);
+            int trap_times = max_trap_times / restart_times + (i < max_trap_times % restart_times ? 1 : 0);
+            tasks.add(new RestartTask(rrt_alg, init_coordinate, current_angle, target_coordinate, early_stop_path_length, cancel_flag, trap_times));
+        }
+        ParallelUtil.invokeAll(tasks);
+
+        //choose in the order of restarts, so that the result does not depend on which restart finishes first
+        UAVPath shortest_path = null;
+        boolean shortest_path_reached = false;
+        best_rrt_alg = null;
+        for (RestartTask task : tasks) {
+            UAVPath path = task.getRawResult();
+            if (path == null || path.getWaypointNum() == 0) {
+                continue;
+            }
+            boolean reached = task.isTarget_reached();
+            if (shortest_path == null || (reached && !shortest_path_reached) || (reached == shortest_path_reached && path.getPath_length() < shortest_path.getPath_length())) {
+                shortest_path = path;
+                shortest_path_reached = reached;
+                best_rrt_alg = task.rrt_alg;
+            }
+        }
+        return shortest_path;
+    }
+
+    private RRTAlg newRestartAlg(RRTAlg prototype, int restart_index) {
+        RRTAlg rrt_alg = prototype.copy();
+        rrt_alg.setRandom(RandomUtil.newRandom(random_seed, restart_index));
+        return rrt_alg;
+    }
+
+    /** the planner which found the path returned lately.
+     *
+     * @return
+     */
+    public RRTAlg getBest_rrt_alg() {
+        return best_rrt_alg;
+    }
+
+    private static class RestartTask extends RecursiveTask<UAVPath> {
+
+        private RRTAlg rrt_alg;
+        private float[] init_coordinate;
+        private double current_angle;
+        private float[] target_coordinate;
+        private float early_stop_path_length;
+        private AtomicBoolean cancel_flag;
+        private int trap_times;
+        private boolean target_reached = false;
+
+        public RestartTask(RRTAlg rrt_alg, float[] init_coordinate, double current_angle, float[] target_coordinate, float early_stop_path_length, AtomicBoolean cancel_flag, int trap_times) {
+            this.rrt_alg = rrt_alg;
+            this.init_coordinate = init_coordinate;
+            this.current_angle = current_angle;
+            this.target_coordinate = target_coordinate;
+            this.early_stop_path_length = early_stop_path_length;
+            this.cancel_flag = cancel_flag;
+            this.trap_times = trap_times;
+        }
+
+        @Override
+        protected UAVPath compute() {
+            UAVPath path = null;
+            for (int i = 0; i <= trap_times && !cancel_flag.get(); i++) {
+                path = rrt_alg.buildPath(init_coordinate, current_angle);
+                if (path.getWaypointNum() > 0 && path.pathReachEndPoint(target_coordinate)) {
+                    target_reached = true;
+                    if (path.getPath_length() <= early_stop_path_length) {
+                        cancel_flag.set(true);
+                    }
+                    break;
+                }
+            }
+            return path;
+        }
+
+        public boolean isTarget_reached() {
+            return target_reached;
+        }
+    }
+}
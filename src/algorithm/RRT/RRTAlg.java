@@ -28,13 +28,20 @@ package algorithm.RRT;
 import config.StaticInitConfig;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
 import util.ConflictCheckUtil;
+import util.ConflictTable;
 import util.DistanceUtil;
-import static util.DistanceUtil.distanceBetween;
+import util.ObstacleIndex;
+import util.ReservationTable;
+import static util.DistanceUtil.distanceSquare;
 import util.VectorUtil;
 import world.model.Conflict;
 import world.model.Obstacle;
 import world.model.shape.Point;
+import world.uav.UAVPath;
 
 /**
  *
@@ -47,6 +54,11 @@ public class RRTAlg implements Serializable {
      *
      */
     protected ArrayList<Obstacle> obstacles;
+    /**
+     * the index of obstacles, which is built when the obstacles are set and shared by the planners copying the settings.
+     *
+     */
+    protected ObstacleIndex obstacle_index;
     protected int bound_width = 800;
     protected int bound_height = 600;
     protected float[] init_coordinate;
@@ -54,6 +66,17 @@ public class RRTAlg implements Serializable {
     protected float current_angle;
     protected float goal_probability = 0.6f;
     protected ArrayList<Conflict> conflicts;
+    /**
+     * the conflicts of the uavs of higher index compiled by time step, which is built when the conflicts are set.
+     *
+     */
+    protected ConflictTable conflict_table;
+    /**
+     * the reservations shared by the attackers and the time step of world when the planning starts, null if it is not used.
+     *
+     */
+    protected ReservationTable reservation_table;
+    protected int reservation_time_step = 0;
     protected int uav_index;
 
     protected boolean idle_uav = false;
@@ -70,6 +93,39 @@ public class RRTAlg implements Serializable {
      *
      */
     protected float goal_range_for_delta = StaticInitConfig.SAFE_DISTANCE_FOR_TARGET;
+
+    /**
+     * the compact tree and scratch buffers reused by buildCompactRRT.
+     *
+     */
+    protected CompactRRTTree compact_tree;
+    /**
+     * the tree copied into when the compact tree is re-rooted, and the obstacles the compact tree has been checked against.
+     *
+     */
+    private CompactRRTTree spare_tree;
+    private BitSet obstacle_indexes_in_tree = new BitSet();
+    private int[] reroot_old_nodes;
+    private int[] reroot_new_nodes;
+    protected RRTTree last_tree;
+    protected float[] random_goal_buffer = new float[2];
+    protected float[] new_node_buffer = new float[2];
+
+    /**
+     * random source of this planner, each planner owns one so that planners running concurrently do not share it.
+     *
+     */
+    protected Random random = new Random();
+    /**
+     * when it is set by other planners, the tree stops growing and the path found so far is returned.
+     *
+     */
+    protected AtomicBoolean cancel_flag;
+    /**
+     * iterations used by the compact planning lately until the goal is reached, or all the iterations if it is not reached.
+     *
+     */
+    protected int iterations_used = 0;
     private static org.apache.log4j.Logger logger = org.apache.log4j.Logger.getLogger(RRTAlg.class);
 
     /**
@@ -89,17 +145,73 @@ public class RRTAlg implements Serializable {
         this.init_coordinate = init_coordinate;
         this.k_step = k_step;
         this.max_delta_distance = max_delta_distance;
-        this.obstacles = obstacles;
         this.bound_height = bound_height;
         this.bound_width = bound_width;
+        this.setObstacles(obstacles);
         this.goal_probability = goal_probability;
         this.goal_coordinate = goal_coordinate;
-        if (conflicts != null) {
-            this.conflicts = conflicts;
-        } else {
-            this.conflicts = new ArrayList<Conflict>();
-        }
         this.uav_index = uav_index;
+        this.setConflicts(conflicts);
+    }
+
+    /** create a planner with the same settings as the given one, its tree and random source are not shared.
+     *
+     * @param rrt_alg
+     */
+    public RRTAlg(RRTAlg rrt_alg) {
+        this.copySettings(rrt_alg);
+    }
+
+    /** copy the settings of the given planner.
+     *
+     * @param rrt_alg
+     */
+    public void copySettings(RRTAlg rrt_alg) {
+        this.obstacles = rrt_alg.obstacles;
+        this.obstacle_index = rrt_alg.obstacle_index;
+        this.bound_width = rrt_alg.bound_width;
+        this.bound_height = rrt_alg.bound_height;
+        this.init_coordinate = rrt_alg.init_coordinate;
+        this.goal_coordinate = rrt_alg.goal_coordinate;
+        this.current_angle = rrt_alg.current_angle;
+        this.goal_probability = rrt_alg.goal_probability;
+        this.conflicts = rrt_alg.conflicts;
+        this.uav_index = rrt_alg.uav_index;
+        this.conflict_table = rrt_alg.conflict_table;
+        this.reservation_table = rrt_alg.reservation_table;
+        this.reservation_time_step = rrt_alg.reservation_time_step;
+        this.idle_uav = rrt_alg.idle_uav;
+        this.k_step = rrt_alg.k_step;
+        this.max_delta_distance = rrt_alg.max_delta_distance;
+        this.max_angle = rrt_alg.max_angle;
+        this.goal_range_for_delta = rrt_alg.goal_range_for_delta;
+    }
+
+    /** create a planner of the same type with the same settings.
+     *
+     * @return
+     */
+    public RRTAlg copy() {
+        return new RRTAlg(this);
+    }
+
+    /** build the tree with the compact tree or RRTTree according to rrt_use_compact_tree, and return the path found.
+     *
+     * @param init_coordinate
+     * @param current_angle
+     * @return
+     */
+    public UAVPath buildPath(float[] init_coordinate, double current_angle) {
+        if (StaticInitConfig.rrt_use_compact_tree) {
+            last_tree = null;
+            return buildCompactRRT(init_coordinate, current_angle);
+        }
+        last_tree = buildRRT(init_coordinate, current_angle);
+        return last_tree.getPath_found();
+    }
+
+    protected boolean isCancelled() {
+        return cancel_flag != null && cancel_flag.get();
     }
 
     public RRTTree buildRRT(float[] init_coordinate, double current_angle) {
@@ -110,7 +222,7 @@ public class RRTAlg implements Serializable {
         start_node.setCurrent_angle(current_angle);
         G.addNode(start_node, null);
         
-        if (DistanceUtil.distanceBetween(init_coordinate, goal_coordinate) < this.max_delta_distance) {
+        if (DistanceUtil.closerThan(init_coordinate, goal_coordinate, this.max_delta_distance)) {
             Point goal_point = new Point(goal_coordinate[0], goal_coordinate[1], 0);
             G.generatePath();
             G.getPath_found().addWaypointToEnd(goal_point);
@@ -132,9 +244,9 @@ public class RRTAlg implements Serializable {
 
 
         int time_step = 0;
-        for (time_step = 0; time_step <= k_step; time_step++) {
+        for (time_step = 0; time_step <= k_step && !isCancelled(); time_step++) {
             //random choose a direction or goal
-            random_goal = randGoal(this.goal_coordinate, probability, bound_width, bound_height, obstacles);
+            random_goal = randGoal(this.goal_coordinate, probability, bound_width, bound_height, obstacle_index, random_goal_buffer);
             //choose the nearest node to extend
             nearest_node = nearestVertex(random_goal, G);
             if (nearest_node == null) {
@@ -143,24 +255,16 @@ public class RRTAlg implements Serializable {
             //extend the child node and validate its confliction 
             new_node = extendTowardGoalWithDynamics(nearest_node, random_goal, this.max_delta_distance, max_angle);
             new_node.setExpected_time_step(nearest_node.getExpected_time_step() + 1);
-            boolean conflict_with_other_uavs = false;
-            int conflict_num = this.conflicts.size();
-            for (int i = 0; i < conflict_num; i++) {
-                Conflict conflict = this.conflicts.get(i);
-                if (conflict.getUav_index() > this.uav_index) {
-                    conflict_with_other_uavs = ConflictCheckUtil.checkUAVConflict(new_node, conflict);
-                }
-                if (conflict_with_other_uavs) {
-                    break;
-                }
-            }
+            float[] nearest_coordinate = nearest_node.getCoordinate();
+            float[] new_coordinate = new_node.getCoordinate();
+            boolean conflict_with_other_uavs = conflictWithOtherUAVs(new_coordinate[0], new_coordinate[1], new_node.getExpected_time_step());
 //            conflict_with_other_uavs=false;
-            boolean conflicted = ConflictCheckUtil.checkNodeInObstacles(obstacles, new_node) || conflict_with_other_uavs;
+            boolean conflicted = conflict_with_other_uavs || edgeInObstacles(obstacle_index, nearest_coordinate[0], nearest_coordinate[1], new_coordinate[0], new_coordinate[1]);
 //            boolean within_bound = BoundUtil.withinBound(new_node, bound_width, bound_height);
             //if not conflicted,add the child to the tree
             if (!conflicted && true) {
                 G.addNode(new_node, nearest_node);
-                if (DistanceUtil.distanceBetween(new_node.getCoordinate(), goal_coordinate) < this.max_delta_distance) {
+                if (DistanceUtil.closerThan(new_node.getCoordinate(), goal_coordinate, this.max_delta_distance)) {
                     Point goal_point = new Point(goal_coordinate[0], goal_coordinate[1], 0);
                     G.generatePath();
                     G.getPath_found().addWaypointToEnd(goal_point);
@@ -182,15 +286,288 @@ public class RRTAlg implements Serializable {
         return G;
     }
 
+    /** build rrt in the reused compact tree, which is the same as buildRRT but does not allocate any node.
+     * The compact tree is reset at the beginning of the next call, so the path should be taken before that.
+     *
+     * @param init_coordinate
+     * @param current_angle
+     * @return the path found
+     */
+    public UAVPath buildCompactRRT(float[] init_coordinate, double current_angle) {
+        this.setInit_coordinate(init_coordinate);
+        if (compact_tree == null) {
+            compact_tree = new CompactRRTTree();
+        }
+        CompactRRTTree G = compact_tree;
+        G.addRoot(init_coordinate[0], init_coordinate[1], current_angle);
+        this.recordObstaclesInTree();
+        iterations_used = 0;
+
+        if (DistanceUtil.closerThan(init_coordinate, goal_coordinate, this.max_delta_distance)) {
+            UAVPath path_found = G.generatePath();
+            path_found.addWaypointToEnd(new Point(goal_coordinate[0], goal_coordinate[1], 0));
+            logger.debug("already near threat");
+            return path_found;
+        }
+        return growCompactRRT(G);
+    }
+
+    /** build rrt by reusing the compact tree built lately, if the path the attacker is flying was generated from it.
+     * The tree is re-rooted at the vertex of the current waypoint, the vertices colliding with the obstacles unknown to the tree 
+     * (or conflicting with other uavs at their new time steps) are pruned with their subtrees, and then the tree continues growing.
+     *
+     * @param path_flown the path the attacker is flying
+     * @param waypoint_index index of the waypoint the attacker is at
+     * @param init_coordinate
+     * @param current_angle
+     * @return the path found, null if the tree can not be reused
+     */
+    public UAVPath buildCompactRRTReusingTree(UAVPath path_flown, int waypoint_index, float[] init_coordinate, double current_angle) {
+        if (compact_tree == null) {
+            return null;
+        }
+        int new_root = compact_tree.getPathVertex(path_flown, waypoint_index);
+        if (new_root == CompactRRTTree.NIL || compact_tree.getX(new_root) != init_coordinate[0] || compact_tree.getY(new_root) != init_coordinate[1]) {
+            return null;
+        }
+        this.setInit_coordinate(init_coordinate);
+        if (spare_tree == null) {
+            spare_tree = new CompactRRTTree();
+        }
+        ArrayList<Obstacle> new_obstacles = new ArrayList<Obstacle>();
+        if (obstacles != null) {
+            for (Obstacle obstacle : obstacles) {
+                if (obstacle.getIndex() < 0 || !obstacle_indexes_in_tree.get(obstacle.getIndex())) {
+                    new_obstacles.add(obstacle);
+                }
+            }
+        }
+        int kept_node_num = reRootTree(compact_tree, new_root, current_angle, spare_tree, new ObstacleIndex(new_obstacles));
+        logger.debug("reuse " + kept_node_num + " of " + compact_tree.getNodeCount() + " vertices");
+        CompactRRTTree G = spare_tree;
+        spare_tree = compact_tree;
+        compact_tree = G;
+        this.recordObstaclesInTree();
+        iterations_used = 0;
+
+        //the goal may have been reached by the vertices kept
+        int nearest_to_goal = G.getNearestNode(goal_coordinate[0], goal_coordinate[1]);
+        if (nearest_to_goal != CompactRRTTree.NIL && DistanceUtil.closerThan(G.getX(nearest_to_goal), G.getY(nearest_to_goal), goal_coordinate[0], goal_coordinate[1], this.max_delta_distance)) {
+            UAVPath path_found = G.generatePath(nearest_to_goal);
+            path_found.addWaypointToEnd(new Point(goal_coordinate[0], goal_coordinate[1], 0));
+            return path_found;
+        }
+        return growCompactRRT(G);
+    }
+
+    /** copy the subtree of new_root into new_tree, where new_root becomes the root. 
+     * The vertices in the new obstacles, or conflicting with other uavs at their new time steps, are dropped with their subtrees.
+     *
+     * @return number of vertices kept
+     */
+    private int reRootTree(CompactRRTTree old_tree, int new_root, double current_angle, CompactRRTTree new_tree, ObstacleIndex new_obstacles) {
+        int capacity = old_tree.getNodeCount();
+        if (reroot_old_nodes == null || reroot_old_nodes.length < capacity) {
+            reroot_old_nodes = new int[capacity];
+            reroot_new_nodes = new int[capacity];
+        }
+        boolean check_conflicts = this.hasConflictsToAvoid();
+        new_tree.setStep_length(old_tree.getStep_length());
+        int head = 0;
+        int tail = 0;
+        reroot_old_nodes[tail] = new_root;
+        reroot_new_nodes[tail++] = new_tree.addRoot(old_tree.getX(new_root), old_tree.getY(new_root), current_angle);
+        while (head < tail) {
+            int old_node = reroot_old_nodes[head];
+            int new_node = reroot_new_nodes[head++];
+            for (int child = old_tree.getFirstChild(old_node); child != CompactRRTTree.NIL; child = old_tree.getNextSibling(child)) {
+                float child_x = old_tree.getX(child);
+                float child_y = old_tree.getY(child);
+                if (edgeInObstacles(new_obstacles, new_tree.getX(new_node), new_tree.getY(new_node), child_x, child_y)) {
+                    continue;
+                }
+                if (check_conflicts && conflictWithOtherUAVs(child_x, child_y, new_tree.getExpected_time_step(new_node) + 1)) {
+                    continue;
+                }
+                reroot_old_nodes[tail] = child;
+                reroot_new_nodes[tail++] = new_tree.addNode(child_x, child_y, new_node);
+            }
+        }
+        return tail;
+    }
+
+    /** record the indexes of the obstacles the compact tree is checked against, which is only needed when the tree is reused.
+     *
+     */
+    private void recordObstaclesInTree() {
+        if (!StaticInitConfig.rrt_reuse_tree) {
+            return;
+        }
+        obstacle_indexes_in_tree.clear();
+        if (obstacles != null) {
+            for (Obstacle obstacle : obstacles) {
+                if (obstacle.getIndex() >= 0) {
+                    obstacle_indexes_in_tree.set(obstacle.getIndex());
+                }
+            }
+        }
+    }
+
+    /** grow the compact tree until the goal is reached or the iterations are used up.
+     *
+     * @param G
+     * @return the path found
+     */
+    protected UAVPath growCompactRRT(CompactRRTTree G) {
+        float[] random_goal;
+        float[] new_node_coord = this.new_node_buffer;
+        int nearest_node;
+        int time_step;
+        for (time_step = 0; time_step <= k_step && !isCancelled(); time_step++) {
+            //random choose a direction or goal
+            random_goal = randGoal(this.goal_coordinate, goal_probability, bound_width, bound_height, obstacle_index, random_goal_buffer);
+            //choose the nearest node to extend
+            if (StaticInitConfig.rrt_nearest_with_kd_tree) {
+                nearest_node = G.getNearestNode(random_goal[0], random_goal[1]);
+            } else {
+                nearest_node = G.getNearestNodeByScanning(random_goal[0], random_goal[1]);
+            }
+            if (nearest_node == CompactRRTTree.NIL) {
+                continue;
+            }
+            //extend the child node and validate its confliction 
+            extendWithDynamics(G.getX(nearest_node), G.getY(nearest_node), G.getCurrent_angle(nearest_node), random_goal[0], random_goal[1], this.max_delta_distance, max_angle, new_node_coord);
+            int new_node_time_step = G.getExpected_time_step(nearest_node) + 1;
+            boolean conflicted = conflictWithOtherUAVs(new_node_coord[0], new_node_coord[1], new_node_time_step) || edgeInObstacles(obstacle_index, G.getX(nearest_node), G.getY(nearest_node), new_node_coord[0], new_node_coord[1]);
+            //if not conflicted,add the child to the tree
+            if (!conflicted) {
+                G.addNode(new_node_coord[0], new_node_coord[1], nearest_node);
+                if (DistanceUtil.closerThan(new_node_coord[0], new_node_coord[1], goal_coordinate[0], goal_coordinate[1], this.max_delta_distance)) {
+                    UAVPath path_found = G.generatePath();
+                    path_found.addWaypointToEnd(new Point(goal_coordinate[0], goal_coordinate[1], 0));
+                    logger.debug(time_step);
+                    iterations_used = time_step + 1;
+                    return path_found;
+                }
+            }
+        }
+        iterations_used = time_step;
+        return G.generatePath();
+    }
+
+    /** check whether the edge extended to the new vertex is in the obstacles, only the new vertex is checked if rrt_check_edge_collision is off.
+     *
+     * @param obstacle_index
+     * @param from_x
+     * @param from_y
+     * @param to_x
+     * @param to_y
+     * @return
+     */
+    protected boolean edgeInObstacles(ObstacleIndex obstacle_index, float from_x, float from_y, float to_x, float to_y) {
+        if (StaticInitConfig.rrt_check_edge_collision) {
+            return ConflictCheckUtil.checkSegmentInObstacles(obstacle_index, from_x, from_y, to_x, to_y);
+        }
+        return ConflictCheckUtil.checkPointInObstacles(obstacle_index, to_x, to_y);
+    }
+
+    /** check whether the location at the time step conflicts with the uavs of higher index.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @param time_step
+     * @return
+     */
+    protected boolean conflictWithOtherUAVs(float coordinate_x, float coordinate_y, int time_step) {
+        if (this.conflict_table.conflictAt(coordinate_x, coordinate_y, time_step)) {
+            return true;
+        }
+        return reservation_table != null && reservation_table.isReserved(coordinate_x, coordinate_y, reservation_time_step + time_step, uav_index, StaticInitConfig.SAFE_DISTANCE_FOR_CONFLICT);
+    }
+
+    /** whether there are conflicts or reservations of other uavs, so that the time steps of vertices matter.
+     *
+     * @return
+     */
+    protected boolean hasConflictsToAvoid() {
+        return !conflict_table.isEmpty() || (reservation_table != null && !reservation_table.isEmpty());
+    }
+
+    /** set the conflicts and compile the ones of the uavs of higher index into the conflict table.
+     *
+     * @param conflicts
+     */
+    public void setConflicts(ArrayList<Conflict> conflicts) {
+        if (conflicts != null) {
+            this.conflicts = conflicts;
+        } else {
+            this.conflicts = new ArrayList<Conflict>();
+        }
+        this.conflict_table = new ConflictTable(this.conflicts, this.uav_index);
+    }
+
+    public ArrayList<Conflict> getConflicts() {
+        return conflicts;
+    }
+
+    /** set the shared reservation table, the time step of planner is counted from the given time step of world.
+     *
+     * @param reservation_table
+     * @param current_time_step
+     */
+    public void setReservation_table(ReservationTable reservation_table, int current_time_step) {
+        this.reservation_table = reservation_table;
+        this.reservation_time_step = current_time_step;
+    }
+
+    public ReservationTable getReservation_table() {
+        return reservation_table;
+    }
+
+    public ConflictTable getConflict_table() {
+        return conflict_table;
+    }
+
+    public CompactRRTTree getCompact_tree() {
+        return compact_tree;
+    }
+
+    /** the RRTTree built lately by buildPath, null if the compact tree is used.
+     *
+     * @return
+     */
+    public RRTTree getLast_tree() {
+        return last_tree;
+    }
+
+    public int getIterations_used() {
+        return iterations_used;
+    }
+
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    public Random getRandom() {
+        return random;
+    }
+
+    public void setCancel_flag(AtomicBoolean cancel_flag) {
+        this.cancel_flag = cancel_flag;
+    }
+
 
     /**
-     * find the nearest vertex in RRTTree
+     * find the nearest vertex in RRTTree, with the spatial index of the tree or by linear scanning.
      *
      * @param goal_coordinate
      * @param G
      * @return
      */
     protected RRTNode nearestVertex(float[] goal_coordinate, RRTTree G) {
+        if (StaticInitConfig.rrt_nearest_with_kd_tree) {
+            return G.getNearestNode(goal_coordinate);
+        }
         RRTNode temp_node;
         RRTNode nearest_node = null;
 
@@ -200,7 +577,7 @@ public class RRTAlg implements Serializable {
         int total_node_num = G.getNodeCount();
         for (int i = 0; i < total_node_num; i++) {
             temp_node = G.getNode(i);
-            temp_dist = distanceBetween(goal_coordinate, temp_node.getCoordinate());
+            temp_dist = distanceSquare(goal_coordinate, temp_node.getCoordinate());
             if (temp_dist < min_dist) {
                 nearest_node = temp_node;
                 min_dist = temp_dist;
@@ -216,23 +593,40 @@ public class RRTAlg implements Serializable {
      * @param goal_probability
      * @param width
      * @param height
-     * @param obstacles
-     * @param threats
+     * @param obstacle_index
      * @return
      */
-    protected float[] randGoal(float[] goal_coordinate, float goal_probability, float width, float height, ArrayList<Obstacle> obstacles) {
-        float probability = (float) Math.random();
+    protected float[] randGoal(float[] goal_coordinate, float goal_probability, float width, float height, ObstacleIndex obstacle_index) {
+        return randGoal(goal_coordinate, goal_probability, width, height, obstacle_index, new float[2]);
+    }
+
+    /**
+     * randomly generate goal location into the given buffer
+     *
+     * @param goal_coordinate
+     * @param goal_probability
+     * @param width
+     * @param height
+     * @param obstacle_index
+     * @param random_goal_coordinate buffer of the random location
+     * @return goal_coordinate or the buffer
+     */
+    protected float[] randGoal(float[] goal_coordinate, float goal_probability, float width, float height, ObstacleIndex obstacle_index, float[] random_goal_coordinate) {
+        float probability = random.nextFloat();
         if (probability <= goal_probability) {
             return goal_coordinate;
         }
-        float[] random_goal_coordinate = new float[2];
-        random_goal_coordinate[0] = (float) (Math.random() * width);
-        random_goal_coordinate[1] = (float) (Math.random() * height);
+        //sample without the covered cells, the other cells are checked exactly
+        if (obstacle_index != null && obstacle_index.sampleFreeLocation(random, random_goal_coordinate)) {
+            return random_goal_coordinate;
+        }
+        random_goal_coordinate[0] = random.nextFloat() * width;
+        random_goal_coordinate[1] = random.nextFloat() * height;
         boolean collisioned = true;
         while (collisioned) {
-            random_goal_coordinate[0] = (float) (Math.random() * width);
-            random_goal_coordinate[1] = (float) (Math.random() * height);
-            if (!ConflictCheckUtil.checkPointInObstacles(obstacles, random_goal_coordinate[0], random_goal_coordinate[1])) {
+            random_goal_coordinate[0] = random.nextFloat() * width;
+            random_goal_coordinate[1] = random.nextFloat() * height;
+            if (!ConflictCheckUtil.checkPointInObstacles(obstacle_index, random_goal_coordinate[0], random_goal_coordinate[1])) {
                 collisioned = false;
             }
         }
@@ -252,7 +646,7 @@ public class RRTAlg implements Serializable {
         float[] nearest_coordinate = nearest_node.getCoordinate();
         double toward_goal_angle = VectorUtil.getAngleOfTwoVector(random_goal_coordinate, nearest_coordinate);
 
-        float[] new_node_coord = new float[2];
+        float[] new_node_coord = this.new_node_buffer;
 
         new_node_coord[0] = nearest_coordinate[0] + (float) Math.cos(toward_goal_angle) * max_length;
         new_node_coord[1] = nearest_coordinate[1] + (float) Math.sin(toward_goal_angle) * max_length;
@@ -276,12 +670,28 @@ public class RRTAlg implements Serializable {
      * @return
      */
     protected RRTNode extendTowardGoalWithDynamics(RRTNode nearest_node, float[] random_goal_coordinate, float max_length, double max_angle) {
-        double current_angle = nearest_node.getCurrent_angle();
         float[] nearest_coordinate = nearest_node.getCoordinate();
-        double toward_goal_angle = VectorUtil.getAngleOfVectorRelativeToXCoordinate(random_goal_coordinate[0] - nearest_coordinate[0], random_goal_coordinate[1] - nearest_coordinate[1]);
+        float[] new_node_coord = this.new_node_buffer;
+        extendWithDynamics(nearest_coordinate[0], nearest_coordinate[1], nearest_node.getCurrent_angle(), random_goal_coordinate[0], random_goal_coordinate[1], max_length, max_angle, new_node_coord);
+        RRTNode new_node = new RRTNode(new_node_coord[0], new_node_coord[1]);
+        return new_node;
+    }
+
+    /**
+     * extend toward goal location, the heading is turned by at most max_angle.
+     *
+     * @param nearest_x
+     * @param nearest_y
+     * @param current_angle
+     * @param goal_x
+     * @param goal_y
+     * @param max_length
+     * @param max_angle
+     * @param new_node_coord buffer of the extended location
+     */
+    protected void extendWithDynamics(float nearest_x, float nearest_y, double current_angle, float goal_x, float goal_y, float max_length, double max_angle, float[] new_node_coord) {
+        double toward_goal_angle = VectorUtil.getAngleOfVectorRelativeToXCoordinate(goal_x - nearest_x, goal_y - nearest_y);
         double delta_angle = VectorUtil.getBetweenAngle(toward_goal_angle, current_angle);
-        float[] new_node_coord = new float[2];
-        float len = max_length;
         if (delta_angle > max_angle) {
             double temp_goal_angle1 = VectorUtil.getNormalAngle(current_angle - max_angle);
             double delta_angle_1 = VectorUtil.getBetweenAngle(toward_goal_angle, temp_goal_angle1);
@@ -294,17 +704,9 @@ public class RRTAlg implements Serializable {
             } else {
                 toward_goal_angle = temp_goal_angle2;
             }
-            len = Math.min(len, DistanceUtil.distanceBetween(nearest_coordinate, random_goal_coordinate));
         }
-        new_node_coord[0] = nearest_coordinate[0] + (float) (Math.cos(toward_goal_angle) * max_length);
-        new_node_coord[1] = nearest_coordinate[1] + (float) (Math.sin(toward_goal_angle) * max_length);
-
-//        boolean conflicted = ConflictCheckUtil.checkPointInObstaclesAndThreats(obstacles, threats, new_node_coord[0], new_node_coord[1]);
-//        if (conflicted) {
-//            return null;
-//        }
-        RRTNode new_node = new RRTNode(new_node_coord[0], new_node_coord[1]);
-        return new_node;
+        new_node_coord[0] = nearest_x + (float) (Math.cos(toward_goal_angle) * max_length);
+        new_node_coord[1] = nearest_y + (float) (Math.sin(toward_goal_angle) * max_length);
     }
 
     public void setGoal_coordinate(float[] goal_coordinate) {
@@ -327,8 +729,37 @@ public class RRTAlg implements Serializable {
         this.max_delta_distance = max_delta_distance;
     }
 
+    /** set the obstacles, the index of them is built again only if they have changed since the last call.
+     *
+     * @param obstacles
+     */
     public void setObstacles(ArrayList<Obstacle> obstacles) {
+        ObstacleIndex obstacle_index = this.obstacle_index;
+        if (obstacle_index == null || !obstacle_index.indexes(obstacles)) {
+            obstacle_index = new ObstacleIndex(obstacles);
+        }
+        this.setObstacles(obstacles, obstacle_index);
+    }
+
+    /** set the obstacles with the index built from them, which is shared instead of built again. 
+     * The occupancy grid of the bound is built into the index if rrt_use_occupancy_grid is on, unless the index already has it.
+     *
+     * @param obstacles
+     * @param obstacle_index
+     */
+    public void setObstacles(ArrayList<Obstacle> obstacles, ObstacleIndex obstacle_index) {
         this.obstacles = obstacles;
+        if (obstacle_index == this.obstacle_index) {
+            return;
+        }
+        this.obstacle_index = obstacle_index;
+        if (StaticInitConfig.rrt_use_occupancy_grid) {
+            obstacle_index.buildOccupancyGrid(bound_width, bound_height, StaticInitConfig.occupancy_grid_cell_size);
+        }
+    }
+
+    public ObstacleIndex getObstacle_index() {
+        return obstacle_index;
     }
 
     public float getMax_angle() {
@@ -0,0 +1,212 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package algorithm.RRT;
+
+import util.ConflictCheckUtil;
+import util.DistanceUtil;
+import util.VectorUtil;
+import world.model.shape.Point;
+import world.uav.UAVPath;
+
+/** This is the RRT-Connect planner, which grows a tree from the start and a tree from the goal alternately.
+ * After one tree is extended toward a random location, the other tree is extended toward the new vertex until they are joined, 
+ * trapped or no longer getting closer.
+ * 
+ * The goal tree keeps the angles of its edges pointing away from the goal, the attacker flies them in reverse, so the same heading constraint
+ * of extendWithDynamics holds for the reversed path. The expected time steps of the goal tree are only known when the trees are joined,
+ * so the conflicts with other uavs along the goal tree are checked at the joint.
+ *
+ * @author Yulin_Zhang
+ */
+public class RRTConnectAlg extends RRTAlg {
+
+    private CompactRRTTree goal_tree;
+
+    public RRTConnectAlg(RRTAlg rrt_alg) {
+        super(rrt_alg);
+    }
+
+    @Override
+    public RRTAlg copy() {
+        return new RRTConnectAlg(this);
+    }
+
+    /** RRT-Connect is always built in the compact trees.
+     *
+     * @param init_coordinate
+     * @param current_angle
+     * @return 
+     */
+    @Override
+    public UAVPath buildPath(float[] init_coordinate, double current_angle) {
+        last_tree = null;
+        return buildRRTConnect(init_coordinate, current_angle);
+    }
+
+    /** build the start tree and the goal tree in the reused compact trees.
+     *
+     * @param init_coordinate
+     * @param current_angle
+     * @return the path found, or the path to the vertex of start tree nearest to the goal if the trees are not joined
+     */
+    public UAVPath buildRRTConnect(float[] init_coordinate, double current_angle) {
+        if (Float.isNaN(goal_coordinate[0]) || Float.isNaN(goal_coordinate[1])) {
+            //no tree can be rooted at the goal, grow the start tree only as RRTAlg does
+            if (goal_tree != null) {
+                goal_tree.reset();
+            }
+            return buildCompactRRT(init_coordinate, current_angle);
+        }
+        this.setInit_coordinate(init_coordinate);
+        if (compact_tree == null) {
+            compact_tree = new CompactRRTTree();
+        }
+        if (goal_tree == null) {
+            goal_tree = new CompactRRTTree();
+        }
+        CompactRRTTree start_tree = compact_tree;
+        start_tree.addRoot(init_coordinate[0], init_coordinate[1], current_angle);
+        goal_tree.addRoot(goal_coordinate[0], goal_coordinate[1], 0);
+        iterations_used = 0;
+
+        if (DistanceUtil.closerThan(init_coordinate, goal_coordinate, this.max_delta_distance)) {
+            UAVPath path_found = start_tree.generatePath();
+            path_found.addWaypointToEnd(new Point(goal_coordinate[0], goal_coordinate[1], 0));
+            return path_found;
+        }
+
+        float[] random_goal;
+        float[] new_node_coord = this.new_node_buffer;
+        boolean extend_start_tree = true;
+        int time_step;
+        for (time_step = 0; time_step <= k_step && !isCancelled(); time_step++) {
+            CompactRRTTree tree = extend_start_tree ? start_tree : goal_tree;
+            CompactRRTTree other_tree = extend_start_tree ? goal_tree : start_tree;
+            extend_start_tree = !extend_start_tree;
+
+            random_goal = randGoal(this.goal_coordinate, 0, bound_width, bound_height, obstacle_index, random_goal_buffer);
+            int nearest_node = tree.getNearestNode(random_goal[0], random_goal[1]);
+            int new_node = extend(tree, tree == start_tree, nearest_node, random_goal[0], random_goal[1], new_node_coord);
+            if (new_node == CompactRRTTree.NIL) {
+                continue;
+            }
+
+            //extend the other tree toward the new vertex until it is no longer getting closer
+            float target_x = tree.getX(new_node);
+            float target_y = tree.getY(new_node);
+            int other_node = other_tree.getNearestNode(target_x, target_y);
+            float dist_to_target = DistanceUtil.distanceBetween(other_tree.getX(other_node), other_tree.getY(other_node), target_x, target_y);
+            while (dist_to_target > this.max_delta_distance) {
+                int other_new_node = extend(other_tree, other_tree == start_tree, other_node, target_x, target_y, new_node_coord);
+                if (other_new_node == CompactRRTTree.NIL) {
+                    break;
+                }
+                other_node = other_new_node;
+                float new_dist_to_target = DistanceUtil.distanceBetween(other_tree.getX(other_node), other_tree.getY(other_node), target_x, target_y);
+                if (new_dist_to_target >= dist_to_target) {
+                    break;
+                }
+                dist_to_target = new_dist_to_target;
+            }
+            if (dist_to_target <= this.max_delta_distance) {
+                UAVPath path_found = tree == start_tree ? join(start_tree, new_node, goal_tree, other_node) : join(start_tree, other_node, goal_tree, new_node);
+                if (path_found != null) {
+                    iterations_used = time_step + 1;
+                    return path_found;
+                }
+            }
+        }
+        iterations_used = time_step;
+        return start_tree.generatePath(start_tree.getNearestNode(goal_coordinate[0], goal_coordinate[1]));
+    }
+
+    /** extend the tree from the vertex toward the location, and add the new vertex if it is valid.
+     * 
+     * @return the new vertex, -1 if it is not valid
+     */
+    private int extend(CompactRRTTree tree, boolean is_start_tree, int from_node, float toward_x, float toward_y, float[] new_node_coord) {
+        float from_x = tree.getX(from_node);
+        float from_y = tree.getY(from_node);
+        //the attacker may arrive at the goal with any heading
+        double current_angle = !is_start_tree && from_node == 0 ? VectorUtil.getAngleOfVectorRelativeToXCoordinate(toward_x - from_x, toward_y - from_y) : tree.getCurrent_angle(from_node);
+        extendWithDynamics(from_x, from_y, current_angle, toward_x, toward_y, this.max_delta_distance, max_angle, new_node_coord);
+        if (edgeInObstacles(obstacle_index, from_x, from_y, new_node_coord[0], new_node_coord[1])) {
+            return CompactRRTTree.NIL;
+        }
+        if (is_start_tree && conflictWithOtherUAVs(new_node_coord[0], new_node_coord[1], tree.getExpected_time_step(from_node) + 1)) {
+            return CompactRRTTree.NIL;
+        }
+        return tree.addNode(new_node_coord[0], new_node_coord[1], from_node);
+    }
+
+    /** join the vertex of start tree with the vertex of goal tree, if the joint edge can be flied and the goal tree part is free of conflicts.
+     * 
+     * @return the path from start to goal, null if they can not be joined
+     */
+    private UAVPath join(CompactRRTTree start_tree, int start_node, CompactRRTTree goal_tree, int goal_node) {
+        float start_x = start_tree.getX(start_node);
+        float start_y = start_tree.getY(start_node);
+        float goal_x = goal_tree.getX(goal_node);
+        float goal_y = goal_tree.getY(goal_node);
+        double joint_angle = start_tree.getCurrent_angle(start_node);
+        if (!DistanceUtil.closerThan(start_x, start_y, goal_x, goal_y, 1e-3f)) {
+            joint_angle = VectorUtil.getAngleOfVectorRelativeToXCoordinate(goal_x - start_x, goal_y - start_y);
+        }
+        if (VectorUtil.getBetweenAngle(joint_angle, start_tree.getCurrent_angle(start_node)) > max_angle) {
+            return null;
+        }
+        //the heading leaving the goal tree vertex is the reverse of its edge
+        if (goal_node != 0 && VectorUtil.getBetweenAngle(goal_tree.getCurrent_angle(goal_node) + Math.PI, joint_angle) > max_angle) {
+            return null;
+        }
+        if (ConflictCheckUtil.checkSegmentInObstacles(obstacle_index, start_x, start_y, goal_x, goal_y)) {
+            return null;
+        }
+        int time_step = start_tree.getExpected_time_step(start_node);
+        for (int node = goal_node; node != CompactRRTTree.NIL; node = goal_tree.getParent(node)) {
+            time_step++;
+            if (conflictWithOtherUAVs(goal_tree.getX(node), goal_tree.getY(node), time_step)) {
+                return null;
+            }
+        }
+
+        UAVPath path_found = start_tree.generatePath(start_node);
+        double arriving_angle = joint_angle;
+        for (int node = goal_node; node != CompactRRTTree.NIL; node = goal_tree.getParent(node)) {
+            path_found.addWaypointToEnd(new Point(goal_tree.getX(node), goal_tree.getY(node), VectorUtil.getNormalAngle(arriving_angle)));
+            arriving_angle = goal_tree.getCurrent_angle(node) + Math.PI;
+        }
+        return path_found;
+    }
+
+    /** the tree grown from the goal lately.
+     *
+     * @return
+     */
+    public CompactRRTTree getGoal_tree() {
+        return goal_tree;
+    }
+}
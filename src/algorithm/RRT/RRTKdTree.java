@@ -0,0 +1,328 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package algorithm.RRT;
+
+import java.util.Arrays;
+
+/** This is an incremental 2-d tree, which is used as the spatial index of the vertices in RRTTree.
+ * The k-th inserted point is identified by index k. Since the goal biased growth of rrt produces nearly straight branches,
+ * the subtree which becomes too unbalanced is rebuilt at its median (as a scapegoat tree does), so that the depth stays logarithmic.
+ *
+ * @author Yulin_Zhang
+ */
+public class RRTKdTree {
+
+    private static final int NIL = -1;
+    /**
+     * a subtree is rebuilt when one of its children holds more than ALPHA of its points.
+     *
+     */
+    private static final float ALPHA = 0.7f;
+    private static final double LOG_OF_INVERSE_ALPHA = Math.log(1 / ALPHA);
+
+    private float[] x_coords;
+    private float[] y_coords;
+    private int[] left_children;
+    private int[] right_children;
+    private int[] subtree_sizes;
+    private byte[] split_axes;
+    private int root = NIL;
+    private int point_num = 0;
+
+    /**
+     * buffers reused by insertion and rebuilding.
+     *
+     */
+    private int[] insert_path = new int[64];
+    private int[] rebuild_buffer = new int[64];
+
+    /**
+     * temporary variables of the nearest query.
+     *
+     */
+    private int nearest_index;
+    private float nearest_dist_square;
+
+    public RRTKdTree() {
+        this(256);
+    }
+
+    public RRTKdTree(int init_capacity) {
+        init_capacity = Math.max(init_capacity, 16);
+        x_coords = new float[init_capacity];
+        y_coords = new float[init_capacity];
+        left_children = new int[init_capacity];
+        right_children = new int[init_capacity];
+        subtree_sizes = new int[init_capacity];
+        split_axes = new byte[init_capacity];
+    }
+
+    /** insert a point into the tree.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @return the index of the point, which equals to the number of points inserted before it.
+     */
+    public int insert(float coordinate_x, float coordinate_y) {
+        ensureCapacity(point_num + 1);
+        int new_point = point_num++;
+        x_coords[new_point] = coordinate_x;
+        y_coords[new_point] = coordinate_y;
+        left_children[new_point] = NIL;
+        right_children[new_point] = NIL;
+        subtree_sizes[new_point] = 1;
+        if (root == NIL) {
+            root = new_point;
+            split_axes[new_point] = 0;
+            return new_point;
+        }
+
+        int depth = 0;
+        int current = root;
+        while (true) {
+            if (depth == insert_path.length) {
+                insert_path = Arrays.copyOf(insert_path, depth * 2);
+            }
+            insert_path[depth++] = current;
+            subtree_sizes[current]++;
+            if (lessThanSplit(current, coordinate_x, coordinate_y)) {
+                if (left_children[current] == NIL) {
+                    left_children[current] = new_point;
+                    break;
+                }
+                current = left_children[current];
+            } else {
+                if (right_children[current] == NIL) {
+                    right_children[current] = new_point;
+                    break;
+                }
+                current = right_children[current];
+            }
+        }
+        split_axes[new_point] = (byte) (1 - split_axes[current]);
+
+        if (depth > Math.log(point_num) / LOG_OF_INVERSE_ALPHA + 1) {
+            rebuildScapegoat(depth, new_point);
+        }
+        return new_point;
+    }
+
+    /** find the point nearest to the given coordinate.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @return index of the nearest point, -1 if the tree is empty.
+     */
+    public int nearest(float coordinate_x, float coordinate_y) {
+        nearest_index = NIL;
+        nearest_dist_square = Float.MAX_VALUE;
+        if (root != NIL) {
+            searchNearest(root, coordinate_x, coordinate_y);
+        }
+        return nearest_index;
+    }
+
+    /** find the points within the radius of the given coordinate.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @param radius
+     * @param result buffer of the indexes found, the points beyond its length are dropped
+     * @return number of indexes stored in result
+     */
+    public int withinRadius(float coordinate_x, float coordinate_y, float radius, int[] result) {
+        if (root == NIL) {
+            return 0;
+        }
+        return searchWithinRadius(root, coordinate_x, coordinate_y, radius * radius, result, 0);
+    }
+
+    public int size() {
+        return point_num;
+    }
+
+    /** remove all the points but keep the allocated buffers, so that the tree can be reused.
+     *
+     */
+    public void reset() {
+        root = NIL;
+        point_num = 0;
+    }
+
+    private void searchNearest(int node, float coordinate_x, float coordinate_y) {
+        float delta_x = x_coords[node] - coordinate_x;
+        float delta_y = y_coords[node] - coordinate_y;
+        float dist_square = delta_x * delta_x + delta_y * delta_y;
+        if (dist_square < nearest_dist_square) {
+            nearest_dist_square = dist_square;
+            nearest_index = node;
+        }
+        float delta_to_split = split_axes[node] == 0 ? coordinate_x - x_coords[node] : coordinate_y - y_coords[node];
+        int near_child = delta_to_split < 0 ? left_children[node] : right_children[node];
+        int far_child = delta_to_split < 0 ? right_children[node] : left_children[node];
+        if (near_child != NIL) {
+            searchNearest(near_child, coordinate_x, coordinate_y);
+        }
+        if (far_child != NIL && delta_to_split * delta_to_split < nearest_dist_square) {
+            searchNearest(far_child, coordinate_x, coordinate_y);
+        }
+    }
+
+    private int searchWithinRadius(int node, float coordinate_x, float coordinate_y, float radius_square, int[] result, int found) {
+        if (found == result.length) {
+            return found;
+        }
+        float delta_x = x_coords[node] - coordinate_x;
+        float delta_y = y_coords[node] - coordinate_y;
+        if (delta_x * delta_x + delta_y * delta_y <= radius_square) {
+            result[found++] = node;
+        }
+        float delta_to_split = split_axes[node] == 0 ? coordinate_x - x_coords[node] : coordinate_y - y_coords[node];
+        int near_child = delta_to_split < 0 ? left_children[node] : right_children[node];
+        int far_child = delta_to_split < 0 ? right_children[node] : left_children[node];
+        if (near_child != NIL) {
+            found = searchWithinRadius(near_child, coordinate_x, coordinate_y, radius_square, result, found);
+        }
+        if (far_child != NIL && delta_to_split * delta_to_split <= radius_square) {
+            found = searchWithinRadius(far_child, coordinate_x, coordinate_y, radius_square, result, found);
+        }
+        return found;
+    }
+
+    private boolean lessThanSplit(int node, float coordinate_x, float coordinate_y) {
+        if (split_axes[node] == 0) {
+            return coordinate_x < x_coords[node];
+        }
+        return coordinate_y < y_coords[node];
+    }
+
+    /** walk up the insertion path, find the deepest ancestor which is not alpha weight balanced and rebuild it.
+     *
+     * @param depth length of the insertion path
+     * @param new_point
+     */
+    private void rebuildScapegoat(int depth, int new_point) {
+        int child = new_point;
+        for (int i = depth - 1; i >= 0; i--) {
+            int ancestor = insert_path[i];
+            if (subtree_sizes[child] > ALPHA * subtree_sizes[ancestor]) {
+                int rebuilt = rebuildSubtree(ancestor);
+                if (i == 0) {
+                    root = rebuilt;
+                } else if (left_children[insert_path[i - 1]] == ancestor) {
+                    left_children[insert_path[i - 1]] = rebuilt;
+                } else {
+                    right_children[insert_path[i - 1]] = rebuilt;
+                }
+                return;
+            }
+            child = ancestor;
+        }
+    }
+
+    private int rebuildSubtree(int subtree_root) {
+        int subtree_size = subtree_sizes[subtree_root];
+        if (rebuild_buffer.length < subtree_size) {
+            rebuild_buffer = new int[Math.max(subtree_size, rebuild_buffer.length * 2)];
+        }
+        //collect the points of the subtree, the buffer is also used as the traversal stack.
+        int collected = 0;
+        int stack_top = subtree_size;
+        rebuild_buffer[--stack_top] = subtree_root;
+        while (stack_top < subtree_size) {
+            int node = rebuild_buffer[stack_top++];
+            rebuild_buffer[collected++] = node;
+            if (left_children[node] != NIL) {
+                rebuild_buffer[--stack_top] = left_children[node];
+            }
+            if (right_children[node] != NIL) {
+                rebuild_buffer[--stack_top] = right_children[node];
+            }
+        }
+        return buildBalanced(0, subtree_size - 1, split_axes[subtree_root]);
+    }
+
+    private int buildBalanced(int low, int high, int axis) {
+        if (low > high) {
+            return NIL;
+        }
+        int median = (low + high) >>> 1;
+        selectKth(low, high, median, axis);
+        int node = rebuild_buffer[median];
+        split_axes[node] = (byte) axis;
+        left_children[node] = buildBalanced(low, median - 1, 1 - axis);
+        right_children[node] = buildBalanced(median + 1, high, 1 - axis);
+        subtree_sizes[node] = high - low + 1;
+        return node;
+    }
+
+    /** partially sort rebuild_buffer[low..high] so that the k-th point along the axis is at position k.
+     *
+     */
+    private void selectKth(int low, int high, int k, int axis) {
+        float[] coords = axis == 0 ? x_coords : y_coords;
+        while (low < high) {
+            float pivot = coords[rebuild_buffer[(low + high) >>> 1]];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (coords[rebuild_buffer[i]] < pivot) {
+                    i++;
+                }
+                while (coords[rebuild_buffer[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int temp = rebuild_buffer[i];
+                    rebuild_buffer[i] = rebuild_buffer[j];
+                    rebuild_buffer[j] = temp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                high = j;
+            } else if (k >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= x_coords.length) {
+            return;
+        }
+        int new_capacity = Math.max(capacity, x_coords.length * 2);
+        x_coords = Arrays.copyOf(x_coords, new_capacity);
+        y_coords = Arrays.copyOf(y_coords, new_capacity);
+        left_children = Arrays.copyOf(left_children, new_capacity);
+        right_children = Arrays.copyOf(right_children, new_capacity);
+        subtree_sizes = Arrays.copyOf(subtree_sizes, new_capacity);
+        split_axes = Arrays.copyOf(split_axes, new_capacity);
+    }
+}
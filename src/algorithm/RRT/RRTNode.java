@@ -25,6 +25,8 @@
  */
 package algorithm.RRT;
 
+import java.util.ArrayList;
+
 /**
  *
  * @author Yulin_Zhang
@@ -36,6 +38,13 @@ public class RRTNode {
     private float distance_from_goal;
     private double current_angle=-1;
     private int expected_time_step=-1;
+    /**
+     * index in the RRTTree it belongs to, -1 if it is not added to any tree.
+     *
+     */
+    private int index = -1;
+    private RRTNode parent;
+    private ArrayList<RRTNode> children;
 
     public RRTNode() {
         coordinate = new float[]{-1f, -1f};
@@ -100,6 +109,46 @@ public class RRTNode {
     public void setExpected_time_step(int expected_time_step) {
         this.expected_time_step = expected_time_step;
     }
+
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    public RRTNode getParent() {
+        return parent;
+    }
+
+    void setParent(RRTNode parent) {
+        this.parent = parent;
+    }
+
+    /** get the children of the node.
+     *
+     * @return null if the node has no child
+     */
+    public ArrayList<RRTNode> getChildren() {
+        if (children == null || children.isEmpty()) {
+            return null;
+        }
+        return children;
+    }
+
+    void addChild(RRTNode child) {
+        if (children == null) {
+            children = new ArrayList<RRTNode>(2);
+        }
+        children.add(child);
+    }
+
+    void removeChild(RRTNode child) {
+        if (children != null) {
+            children.remove(child);
+        }
+    }
     
     
 }
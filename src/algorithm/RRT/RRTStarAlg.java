@@ -0,0 +1,294 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package algorithm.RRT;
+
+import config.StaticInitConfig;
+import java.util.Arrays;
+import util.ConflictCheckUtil;
+import util.DistanceUtil;
+import util.VectorUtil;
+import world.model.shape.Point;
+import world.uav.UAVPath;
+
+/** This is the RRT* planner, which grows the compact tree as RRTAlg does, but chooses the cheapest parent for each new vertex
+ * and rewires the neighbours through it. Once a path to the goal is found, the samples are drawn from the ellipse whose foci are
+ * the start and the goal (informed RRT*), and the tree is refined for refine_iterations iterations more.
+ * 
+ * The neighbours are searched within neighbour_radius, an edge longer than max_delta_distance takes several time steps and is split into steps in the path,
+ * so that the attacker still flies no more than max_delta_distance in a time step. The heading constraint (max_angle) is kept for every edge changed.
+ * When there are conflicts to avoid, the edges are kept within one step, so that the expected time steps of the vertices checked do not change.
+ *
+ * @author Yulin_Zhang
+ */
+public class RRTStarAlg extends RRTAlg {
+
+    private int refine_iterations = StaticInitConfig.rrt_star_refine_iterations;
+    private float neighbour_radius_factor = StaticInitConfig.rrt_star_neighbour_radius_factor;
+
+    /**
+     * buffers reused during building.
+     *
+     */
+    private int[] near_nodes = new int[64];
+    private int[] goal_nodes = new int[16];
+
+    public RRTStarAlg(RRTAlg rrt_alg) {
+        super(rrt_alg);
+    }
+
+    @Override
+    public void copySettings(RRTAlg rrt_alg) {
+        super.copySettings(rrt_alg);
+        if (rrt_alg instanceof RRTStarAlg) {
+            this.refine_iterations = ((RRTStarAlg) rrt_alg).refine_iterations;
+            this.neighbour_radius_factor = ((RRTStarAlg) rrt_alg).neighbour_radius_factor;
+        }
+    }
+
+    @Override
+    public RRTAlg copy() {
+        return new RRTStarAlg(this);
+    }
+
+    /** RRT* is always built in the compact tree.
+     *
+     * @param init_coordinate
+     * @param current_angle
+     * @return 
+     */
+    @Override
+    public UAVPath buildPath(float[] init_coordinate, double current_angle) {
+        last_tree = null;
+        return buildRRTStar(init_coordinate, current_angle);
+    }
+
+    /** build RRT* in the reused compact tree.
+     *
+     * @param init_coordinate
+     * @param current_angle
+     * @return the shortest path found
+     */
+    public UAVPath buildRRTStar(float[] init_coordinate, double current_angle) {
+        this.setInit_coordinate(init_coordinate);
+        if (compact_tree == null) {
+            compact_tree = new CompactRRTTree();
+        }
+        CompactRRTTree G = compact_tree;
+        G.setStep_length(this.max_delta_distance);
+        G.addRoot(init_coordinate[0], init_coordinate[1], current_angle);
+        iterations_used = 0;
+
+        float straight_line_length = DistanceUtil.distanceBetween(init_coordinate, goal_coordinate);
+        if (straight_line_length < this.max_delta_distance) {
+            UAVPath path_found = G.generatePath();
+            path_found.addWaypointToEnd(new Point(goal_coordinate[0], goal_coordinate[1], 0));
+            return path_found;
+        }
+        boolean time_steps_matter = this.hasConflictsToAvoid();
+        float neighbour_radius = time_steps_matter ? this.max_delta_distance : this.max_delta_distance * neighbour_radius_factor;
+
+        float[] random_goal;
+        float[] new_node_coord = this.new_node_buffer;
+        int goal_node_num = 0;
+        int best_goal_node = CompactRRTTree.NIL;
+        float best_path_length = Float.MAX_VALUE;
+        int iterations_after_found = 0;
+        int time_step;
+        for (time_step = 0; time_step <= k_step && !isCancelled(); time_step++) {
+            if (best_goal_node != CompactRRTTree.NIL && iterations_after_found++ >= refine_iterations) {
+                break;
+            }
+            if (best_goal_node == CompactRRTTree.NIL) {
+                random_goal = randGoal(this.goal_coordinate, goal_probability, bound_width, bound_height, obstacle_index, random_goal_buffer);
+            } else {
+                random_goal = informedSample(init_coordinate, goal_coordinate, best_path_length, straight_line_length, random_goal_buffer);
+            }
+            int nearest_node = G.getNearestNode(random_goal[0], random_goal[1]);
+            if (nearest_node == CompactRRTTree.NIL) {
+                continue;
+            }
+            extendWithDynamics(G.getX(nearest_node), G.getY(nearest_node), G.getCurrent_angle(nearest_node), random_goal[0], random_goal[1], this.max_delta_distance, max_angle, new_node_coord);
+            if (edgeInObstacles(obstacle_index, G.getX(nearest_node), G.getY(nearest_node), new_node_coord[0], new_node_coord[1])
+                    || conflictWithOtherUAVs(new_node_coord[0], new_node_coord[1], G.getExpected_time_step(nearest_node) + 1)) {
+                continue;
+            }
+
+            //choose the parent with the shortest path from root among the neighbours
+            int near_node_num = G.getNodesWithinRadius(new_node_coord[0], new_node_coord[1], neighbour_radius, near_nodes);
+            int parent = nearest_node;
+            float min_path_length = G.getPath_lenght_from_root(nearest_node) + DistanceUtil.distanceBetween(G.getX(nearest_node), G.getY(nearest_node), new_node_coord[0], new_node_coord[1]);
+            for (int i = 0; i < near_node_num; i++) {
+                int near_node = near_nodes[i];
+                if (near_node == nearest_node) {
+                    continue;
+                }
+                float path_length = G.getPath_lenght_from_root(near_node) + DistanceUtil.distanceBetween(G.getX(near_node), G.getY(near_node), new_node_coord[0], new_node_coord[1]);
+                if (path_length < min_path_length
+                        && headingFeasible(G.getCurrent_angle(near_node), G.getX(near_node), G.getY(near_node), new_node_coord[0], new_node_coord[1])
+                        && !ConflictCheckUtil.checkSegmentInObstacles(obstacle_index, G.getX(near_node), G.getY(near_node), new_node_coord[0], new_node_coord[1])
+                        && !(time_steps_matter && conflictWithOtherUAVs(new_node_coord[0], new_node_coord[1], G.getExpected_time_step(near_node) + G.stepsOfEdge(path_length - G.getPath_lenght_from_root(near_node))))) {
+                    parent = near_node;
+                    min_path_length = path_length;
+                }
+            }
+            int new_node = G.addNode(new_node_coord[0], new_node_coord[1], parent);
+
+            //rewire the neighbours through the new vertex
+            boolean rewired = false;
+            for (int i = 0; i < near_node_num; i++) {
+                int near_node = near_nodes[i];
+                if (near_node == parent) {
+                    continue;
+                }
+                if (rewire(G, new_node, near_node, time_steps_matter)) {
+                    rewired = true;
+                }
+            }
+
+            if (DistanceUtil.closerThan(new_node_coord[0], new_node_coord[1], goal_coordinate[0], goal_coordinate[1], this.max_delta_distance)) {
+                if (goal_node_num == goal_nodes.length) {
+                    goal_nodes = Arrays.copyOf(goal_nodes, goal_node_num * 2);
+                }
+                goal_nodes[goal_node_num++] = new_node;
+                rewired = true;
+                if (goal_node_num == 1) {
+                    iterations_used = time_step + 1;
+                }
+            }
+            if (rewired && goal_node_num > 0) {
+                //the path lengths of the vertices near the goal may be shortened by rewiring
+                for (int i = 0; i < goal_node_num; i++) {
+                    int goal_node = goal_nodes[i];
+                    float path_length = G.getPath_lenght_from_root(goal_node) + DistanceUtil.distanceBetween(G.getX(goal_node), G.getY(goal_node), goal_coordinate[0], goal_coordinate[1]);
+                    if (path_length < best_path_length) {
+                        best_path_length = path_length;
+                        best_goal_node = goal_node;
+                    }
+                }
+            }
+        }
+        if (best_goal_node == CompactRRTTree.NIL) {
+            iterations_used = time_step;
+            return G.generatePath();
+        }
+        UAVPath path_found = G.generatePath(best_goal_node);
+        path_found.addWaypointToEnd(new Point(goal_coordinate[0], goal_coordinate[1], 0));
+        return path_found;
+    }
+
+    /** make the new vertex the parent of the near vertex if it shortens the path from root and all the constraints hold.
+     *
+     * @param G
+     * @param new_node
+     * @param near_node
+     * @param time_steps_matter whether changing the expected time steps of the subtree should be avoided
+     * @return true if rewired
+     */
+    private boolean rewire(CompactRRTTree G, int new_node, int near_node, boolean time_steps_matter) {
+        float new_x = G.getX(new_node);
+        float new_y = G.getY(new_node);
+        float near_x = G.getX(near_node);
+        float near_y = G.getY(near_node);
+        if (G.getPath_lenght_from_root(new_node) + DistanceUtil.distanceBetween(new_x, new_y, near_x, near_y) >= G.getPath_lenght_from_root(near_node)) {
+            return false;
+        }
+        //the subtree has been checked against the conflicts at its current time steps
+        if (time_steps_matter && G.getExpected_time_step(new_node) + G.stepsOfEdge(DistanceUtil.distanceBetween(new_x, new_y, near_x, near_y)) != G.getExpected_time_step(near_node)) {
+            return false;
+        }
+        if (!headingFeasible(G.getCurrent_angle(new_node), new_x, new_y, near_x, near_y)) {
+            return false;
+        }
+        double new_angle = VectorUtil.getAngleOfVectorRelativeToXCoordinate(near_x - new_x, near_y - new_y);
+        for (int child = G.getFirstChild(near_node); child != CompactRRTTree.NIL; child = G.getNextSibling(child)) {
+            if (VectorUtil.getBetweenAngle(G.getCurrent_angle(child), new_angle) > max_angle) {
+                return false;
+            }
+        }
+        if (ConflictCheckUtil.checkSegmentInObstacles(obstacle_index, new_x, new_y, near_x, near_y)) {
+            return false;
+        }
+        G.changeParent(near_node, new_node);
+        return true;
+    }
+
+    /** check whether the edge from the vertex with the given angle can be flied within max_angle.
+     *
+     */
+    private boolean headingFeasible(double current_angle, float from_x, float from_y, float to_x, float to_y) {
+        double edge_angle = VectorUtil.getAngleOfVectorRelativeToXCoordinate(to_x - from_x, to_y - from_y);
+        return VectorUtil.getBetweenAngle(edge_angle, current_angle) <= max_angle;
+    }
+
+    /** sample uniformly in the ellipse whose foci are the start and the goal, and the sum of distances to foci is no more than best_path_length.
+     * The samples in obstacles or out of bound are rejected.
+     *
+     * @param init_coordinate
+     * @param goal_coordinate
+     * @param best_path_length
+     * @param straight_line_length
+     * @param random_goal_coordinate buffer of the sample
+     * @return
+     */
+    protected float[] informedSample(float[] init_coordinate, float[] goal_coordinate, float best_path_length, float straight_line_length, float[] random_goal_coordinate) {
+        float center_x = (init_coordinate[0] + goal_coordinate[0]) / 2;
+        float center_y = (init_coordinate[1] + goal_coordinate[1]) / 2;
+        double axis_angle = Math.atan2(goal_coordinate[1] - init_coordinate[1], goal_coordinate[0] - init_coordinate[0]);
+        double cos_axis = Math.cos(axis_angle);
+        double sin_axis = Math.sin(axis_angle);
+        double major_radius = best_path_length / 2;
+        double minor_radius = Math.sqrt(Math.max(best_path_length * best_path_length - straight_line_length * straight_line_length, 0)) / 2;
+        for (int i = 0; i < 100; i++) {
+            double rho = Math.sqrt(random.nextDouble());
+            double phi = random.nextDouble() * Math.PI * 2;
+            double local_x = major_radius * rho * Math.cos(phi);
+            double local_y = minor_radius * rho * Math.sin(phi);
+            random_goal_coordinate[0] = (float) (center_x + local_x * cos_axis - local_y * sin_axis);
+            random_goal_coordinate[1] = (float) (center_y + local_x * sin_axis + local_y * cos_axis);
+            if (random_goal_coordinate[0] >= 0 && random_goal_coordinate[0] <= bound_width && random_goal_coordinate[1] >= 0 && random_goal_coordinate[1] <= bound_height
+                    && !ConflictCheckUtil.checkPointInObstacles(obstacle_index, random_goal_coordinate[0], random_goal_coordinate[1])) {
+                return random_goal_coordinate;
+            }
+        }
+        return randGoal(goal_coordinate, 0, bound_width, bound_height, obstacle_index, random_goal_coordinate);
+    }
+
+    public int getRefine_iterations() {
+        return refine_iterations;
+    }
+
+    public void setRefine_iterations(int refine_iterations) {
+        this.refine_iterations = refine_iterations;
+    }
+
+    public float getNeighbour_radius_factor() {
+        return neighbour_radius_factor;
+    }
+
+    public void setNeighbour_radius_factor(float neighbour_radius_factor) {
+        this.neighbour_radius_factor = neighbour_radius_factor;
+    }
+}
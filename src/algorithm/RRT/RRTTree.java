@@ -37,11 +37,19 @@ import world.uav.UAVPath;
  */
 public class RRTTree {
 
+    /**
+     * the i-th vertex has index i, its parent and children are kept by the node itself.
+     *
+     */
     private ArrayList<RRTNode> vertices;
-    private ArrayList<RRTNode> parents_of_vertices;
-    private ArrayList<ArrayList<RRTNode>> children_of_vertices;
     
     private RRTNode last_time_added=null;
+    
+    /**
+     * spatial index of the vertices, the k-th vertex is the k-th point in the index.
+     *
+     */
+    private RRTKdTree spatial_index;
 
     /**
      * variable to store the path
@@ -53,8 +61,7 @@ public class RRTTree {
     //static Node closestNode = null;        
     public RRTTree() {
         vertices = new ArrayList<RRTNode>();
-        children_of_vertices = new ArrayList<ArrayList<RRTNode>>();
-        parents_of_vertices = new ArrayList<RRTNode>();
+        spatial_index = new RRTKdTree();
         path_found = new UAVPath();
     }
 
@@ -64,17 +71,27 @@ public class RRTTree {
      * @param parent
      */
     public void addNode(RRTNode child, RRTNode parent) {
-        if (!vertices.contains(child)) {
+        if (!containsNode(child)) {
+            child.setIndex(vertices.size());
             vertices.add(child);
+            spatial_index.insert(child.getCoordinate()[0], child.getCoordinate()[1]);
             addParent(child, parent);
             this.last_time_added=child;
         }
     }
 
+    /** check whether the node is a vertex of this tree.
+     *
+     * @param node
+     * @return
+     */
+    public boolean containsNode(RRTNode node) {
+        int index = node.getIndex();
+        return index >= 0 && index < vertices.size() && vertices.get(index) == node;
+    }
+
     private void addParent(RRTNode child, RRTNode parent) {
-        int index = vertices.indexOf(child);
-        parents_of_vertices.add(index, parent);
-        children_of_vertices.add(index, new ArrayList<RRTNode>());
+        child.setParent(parent);
         if (parent != null) {//not root node
             addChild(parent, child);
             child.setCurrent_angle(VectorUtil.getAngleOfVectorRelativeToXCoordinate(child.getCoordinate()[0] - parent.getCoordinate()[0], child.getCoordinate()[1] - parent.getCoordinate()[1]));
@@ -92,26 +109,18 @@ public class RRTTree {
      * @param child
      */
     private void addChild(RRTNode parent, RRTNode child) {
-        int index = vertices.indexOf(parent);
-        if (!children_of_vertices.get(index).contains(child)) {
-            children_of_vertices.get(index).add(child);
-        }
+        parent.addChild(child);
     }
 
     public ArrayList<RRTNode> getChildren(RRTNode n) {
-        int index = vertices.indexOf(n);
-        if (index == -1) {
-            return null;
-        } else if (children_of_vertices.get(index).isEmpty()) {
+        if (!containsNode(n)) {
             return null;
-        } else {
-            return children_of_vertices.get(index);
         }
+        return n.getChildren();
     }
 
     public RRTNode getParent(RRTNode n) {
-        int index = vertices.indexOf(n);
-        return parents_of_vertices.get(index);
+        return n.getParent();
     }
 
     /**
@@ -120,14 +129,11 @@ public class RRTTree {
      * @param newParent
      */
     public void changeParent(RRTNode child_node, RRTNode new_parent) {
-        int child_index = vertices.indexOf(child_node);
-        RRTNode oldParent = parents_of_vertices.get(child_index);
-        child_index = vertices.indexOf(oldParent);
-        children_of_vertices.get(child_index).remove(child_node);
-//        RRTNode oldParent = new RRTNode(temp.getCoordinate()[0], temp.getCoordinate()[1]);
-//        parents_of_vertices.set(index, newParent);
-
-        parents_of_vertices.set(child_index, new_parent);
+        RRTNode old_parent = child_node.getParent();
+        if (old_parent != null) {
+            old_parent.removeChild(child_node);
+        }
+        child_node.setParent(new_parent);
         addChild(new_parent, child_node);
         child_node.setCurrent_angle(VectorUtil.getAngleOfVectorRelativeToXCoordinate(child_node.getCoordinate()[0] - new_parent.getCoordinate()[0], child_node.getCoordinate()[1] - new_parent.getCoordinate()[1]));
         child_node.setPath_lenght_from_root(new_parent.getPath_lenght_from_root() + DistanceUtil.distanceBetween(new_parent.getCoordinate(), child_node.getCoordinate()));
@@ -151,6 +157,19 @@ public class RRTTree {
         return vertices.size();
     }
 
+    /** find the vertex nearest to the given coordinate with the spatial index.
+     *
+     * @param coordinate
+     * @return null if the tree is empty
+     */
+    public RRTNode getNearestNode(float[] coordinate) {
+        int index = spatial_index.nearest(coordinate[0], coordinate[1]);
+        if (index < 0) {
+            return null;
+        }
+        return this.getNode(index);
+    }
+
     public void generatePath() {
         RRTNode n=this.last_time_added;
         if(n==null)
@@ -30,7 +30,9 @@ import java.util.ArrayList;
 import java.util.Random;
 import world.uav.UAVBase;
 import util.ConflictCheckUtil;
+import util.ObstacleIndex;
 import util.ObtacleUtil;
+import util.RandomUtil;
 import world.model.Obstacle;
 import world.model.Threat;
 
@@ -62,6 +64,9 @@ public class NonStaticInitConfig {
 
     public static int obstacle_num = 17;
 
+    //all the random sources of a run are derived from this seed, set it to a fixed value to reproduce a run
+    public static long master_seed = System.currentTimeMillis();
+
     public NonStaticInitConfig() {
         if (!StaticInitConfig.UI_PARAMETER_CONFIG) {
             this.enemy_num = 0;
@@ -81,7 +86,8 @@ public class NonStaticInitConfig {
     }
     public void initThreats() {
         threats = new ArrayList<Threat>();
-        Random random = new Random(System.currentTimeMillis());
+        Random random = RandomUtil.newRandom(master_seed, 0);
+        ObstacleIndex obstacle_index = new ObstacleIndex(obstacles);
         for (int i = 0; i < threat_num; i++) {
             float coordinate_x = 0;
             float coordinate_y = 0;
@@ -90,7 +96,7 @@ public class NonStaticInitConfig {
                 coordinate_x = random.nextFloat() * (bound_width - 3*threat_range_from_obstacles) + 2*threat_range_from_obstacles;
                 coordinate_y = random.nextFloat() * (bound_height -3*threat_range_from_obstacles) +2*threat_range_from_obstacles;
                 Rectangle threat_mbr=new Rectangle((int)coordinate_x - (Threat.threat_width+threat_range_from_obstacles) / 2, (int) coordinate_y - (Threat.threat_height+threat_range_from_obstacles) / 2, Threat.threat_width+threat_range_from_obstacles, Threat.threat_height+threat_range_from_obstacles);
-                found = !ConflictCheckUtil.checkThreatInObstacles(obstacles, threat_mbr)&&!this.uav_base.getBase_shape().intersects(threat_mbr);
+                found = !ConflictCheckUtil.checkThreatInObstacles(obstacle_index, threat_mbr)&&!this.uav_base.getBase_shape().intersects(threat_mbr);
             }
             Threat threat = new Threat(i, new float[]{coordinate_x, coordinate_y}, StaticInitConfig.STATIC_THREAT_TYPE, 5);
             threats.add(threat);
@@ -99,7 +105,8 @@ public class NonStaticInitConfig {
     
     public void initThreats1() {
         threats = new ArrayList<Threat>();
-        Random random = new Random(System.currentTimeMillis());
+        Random random = RandomUtil.newRandom(master_seed, 0);
+        ObstacleIndex obstacle_index = new ObstacleIndex(obstacles);
         for (int i = 0; i < threat_num; i++) {
             float coordinate_x = 0;
             float coordinate_y = 0;
@@ -107,7 +114,7 @@ public class NonStaticInitConfig {
             while (!found) {
                 coordinate_x = random.nextFloat() * (bound_width - 3 * attacker_patrol_range) + attacker_patrol_range;
                 coordinate_y = random.nextFloat() * (bound_height - 3 * attacker_patrol_range) + attacker_patrol_range;
-                found = !ConflictCheckUtil.checkPointInObstacles(obstacles, coordinate_x, coordinate_y);
+                found = !ConflictCheckUtil.checkPointInObstacles(obstacle_index, coordinate_x, coordinate_y);
             }
             Threat threat = new Threat(i, new float[]{coordinate_x, coordinate_y}, StaticInitConfig.STATIC_THREAT_TYPE, 5);
             threats.add(threat);
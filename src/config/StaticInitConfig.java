@@ -63,6 +63,51 @@ public class StaticInitConfig {
     public static int SAFE_DISTANCE_FOR_CONFLICT = 2;
     public static int rrt_planning_times_for_attacker = 5;
     public static int rrt_planning_times_for_scout = 1;
+    //find the nearest vertex with the k-d tree of RRTTree, false falls back to linear scanning (used to verify the index)
+    public static boolean rrt_nearest_with_kd_tree = true;
+    //build the rrt of attackers in a reused CompactRRTTree instead of allocating an RRTTree of RRTNode for each run
+    public static boolean rrt_use_compact_tree = true;
+    //run the restarts of rrt planning for an attacker concurrently in the fork-join pool of ParallelUtil
+    public static boolean rrt_parallel_planning = true;
+    //replan by re-rooting the compact tree built lately at the current waypoint, it only applies to the rrt planner with compact tree
+    public static boolean rrt_reuse_tree = false;
+    //check the whole edge rather than only the new vertex against the obstacles when the tree is extended
+    public static boolean rrt_check_edge_collision = true;
+    //rasterise the obstacles into an occupancy grid of this cell size, kept in the obstacle index of the knowledge, for constant time point tests and sampling without the covered cells
+    public static boolean rrt_use_occupancy_grid = false;
+    public static float occupancy_grid_cell_size = 4;
+    //check the polygons of obstacles exactly after their mbrs are hit, instead of treating the mbrs as obstacles
+    public static boolean exact_obstacle_collision = false;
+    //the attackers reserve their future paths in a shared space-time table instead of publishing conflicts, the cell size should be no less than the conflict range
+    public static boolean use_reservation_table = false;
+    public static float reservation_cell_size = 8;
+    //cell size of the grid used to find the attackers conflicted with each other, in multiples of SAFE_DISTANCE_FOR_CONFLICT
+    public static int conflict_grid_cell_multiple = 4;
+    //keep the knowledge of attackers and control center in the typed maps of IndexedKnowledge instead of OntologyBasedKnowledge
+    public static boolean use_indexed_knowledge = true;
+    //export the changes of IndexedKnowledge to an ontology in a background thread, so that the knowledge can be inspected
+    public static boolean export_knowledge_to_ontology = false;
+    //the attackers record what they discovered over a world model shared by all of them instead of keeping their own copies, it takes precedence over use_indexed_knowledge for attackers
+    public static boolean use_shared_world_model = true;
+    //the restarts are cancelled once a path to the target no longer than this ratio of the straight-line distance is found, 0 means never cancelled
+    public static float rrt_early_stop_path_ratio = 0f;
+    //number of workers of the fork-join pool used for planning
+    public static int planning_parallelism = Runtime.getRuntime().availableProcessors();
+    //search the paths of all attackers concurrently in each time step, the paths are committed in the order of attackers
+    public static boolean parallel_planning_for_attackers = true;
+
+    //path planning algorithms of attackers
+    public static int RRT_PLANNER = 0;
+    public static int RRT_STAR_PLANNER = 1;
+    public static int RRT_CONNECT_PLANNER = 2;
+    //the planner attackers use by default, it can be changed for each attacker with Attacker.setPlanner_type
+    public static int attacker_planner_type = RRT_PLANNER;
+    //RRT* refines one tree instead of planning several times
+    public static int rrt_star_planning_times_for_attacker = 0;
+    //how many iterations RRT* continues to refine the tree after the first path is found
+    public static int rrt_star_refine_iterations = 1000;
+    //RRT* searches the neighbours within this factor of the step length
+    public static float rrt_star_neighbour_radius_factor = 6;
 
     //how much time it takes to drive the simulaiton to next time step
     public static int INIT_SIMULATION_DELAY = 400; //milliseconds,this value will be set according to the user's simulation speed
@@ -0,0 +1,118 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package experimentWithoutUI;
+
+import algorithm.RRT.RRTAlg;
+import config.NonStaticInitConfig;
+import config.StaticInitConfig;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import util.RandomUtil;
+import world.model.Conflict;
+import world.model.Threat;
+import world.model.shape.Point;
+import world.uav.UAVPath;
+
+/** This measures the bytes allocated by the steps of simulation which run in every time step: the movement along a planned path,
+ * and an iteration of the planners. The movement is expected to allocate nothing, while an iteration of the compact tree planner
+ * should only allocate for the path it returns. The bytes are counted by the jvm for the current thread, so the planners run sequentially.
+ *
+ * @author Yulin_Zhang
+ */
+public class AllocationExperiment {
+
+    private static final int WARM_UP_ROUNDS = 20;
+    private static final int ROUNDS = 100;
+
+    public static void main(String[] args) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("the allocated bytes are not counted by this jvm");
+            return;
+        }
+        NonStaticInitConfig.master_seed = 0;
+        NonStaticInitConfig config = new NonStaticInitConfig();
+        config.setThreat_num(10);
+        config.initObstacles();
+        config.initThreats();
+
+        Threat threat = new Threat(0, new float[]{100, 100}, StaticInitConfig.STATIC_THREAT_TYPE, 5);
+        UAVPath path = new UAVPath();
+        for (int i = 0; i < 100; i++) {
+            path.addWaypointToEnd(new Point(100 + i * 5, 100, 0));
+        }
+        threat.setPath_planned_at_current_time_step(path);
+        for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+            moveAlongPath(threat);
+        }
+        long allocated_bytes = allocatedBytes();
+        for (int round = 0; round < ROUNDS; round++) {
+            moveAlongPath(threat);
+        }
+        allocated_bytes = allocatedBytes() - allocated_bytes;
+        System.out.println(String.format("%-12s %.1f bytes per move", "threat move", (double) allocated_bytes / ROUNDS / path.getWaypointNum()));
+
+        runPlanner("RRT", config);
+    }
+
+    private static void moveAlongPath(Threat threat) {
+        threat.resetCurrentIndexOfPath();
+        while (threat.moveToNextWaypoint()) {
+        }
+    }
+
+    /** plan from the uav base to every threat and print the bytes allocated per iteration.
+     *
+     */
+    private static void runPlanner(String name, NonStaticInitConfig config) {
+        RRTAlg rrt_alg = new RRTAlg(config.getUav_base().getCoordinate(), null, StaticInitConfig.rrt_goal_toward_probability, config.getBound_width(), config.getBound_height(), StaticInitConfig.rrt_iteration_times, StaticInitConfig.SPEED_OF_ATTACKER_ON_TASK, config.getObstacles(), new ArrayList<Conflict>(), 0);
+        rrt_alg.setRandom(RandomUtil.newRandom(NonStaticInitConfig.master_seed, 1));
+        float[] init_coordinate = config.getUav_base().getCoordinate();
+        for (int round = 0; round < WARM_UP_ROUNDS / 4; round++) {
+            for (Threat threat : config.getThreats()) {
+                rrt_alg.setGoal_coordinate(threat.getCoordinates());
+                rrt_alg.buildPath(init_coordinate, 0);
+            }
+        }
+        long total_iterations = 0;
+        long path_waypoints = 0;
+        long allocated_bytes = allocatedBytes();
+        for (int round = 0; round < ROUNDS / 4; round++) {
+            for (Threat threat : config.getThreats()) {
+                rrt_alg.setGoal_coordinate(threat.getCoordinates());
+                UAVPath path = rrt_alg.buildPath(init_coordinate, 0);
+                total_iterations += rrt_alg.getIterations_used();
+                path_waypoints += path.getWaypointNum();
+            }
+        }
+        allocated_bytes = allocatedBytes() - allocated_bytes;
+        System.out.println(String.format("%-12s %.1f bytes per iteration, %.1f bytes per waypoint of the paths", name, (double) allocated_bytes / total_iterations, (double) allocated_bytes / path_waypoints));
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean thread_bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return thread_bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
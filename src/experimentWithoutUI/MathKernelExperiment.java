@@ -0,0 +1,151 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package experimentWithoutUI;
+
+import java.util.Random;
+import util.DistanceUtil;
+import util.VectorUtil;
+
+/** This compares the time of the math kernels in DistanceUtil and VectorUtil with the implementations they replaced,
+ * on the same random coordinates. Each kernel is warmed up before it is timed, and the results are summed and printed so that they are not eliminated.
+ * The largest difference between the angles of atan2 and acos is also printed.
+ *
+ * @author Yulin_Zhang
+ */
+public class MathKernelExperiment {
+
+    private static final int SAMPLE_NUM = 1 << 16;
+    private static final int WARM_UP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+
+    private static float[] xs_1 = new float[SAMPLE_NUM];
+    private static float[] ys_1 = new float[SAMPLE_NUM];
+    private static float[] xs_2 = new float[SAMPLE_NUM];
+    private static float[] ys_2 = new float[SAMPLE_NUM];
+    private static double sink = 0;
+
+    public static void main(String[] args) {
+        Random random = new Random(0);
+        for (int i = 0; i < SAMPLE_NUM; i++) {
+            xs_1[i] = random.nextFloat() * 800;
+            ys_1[i] = random.nextFloat() * 600;
+            xs_2[i] = random.nextFloat() * 800;
+            ys_2[i] = random.nextFloat() * 600;
+        }
+        for (int kernel = 0; kernel < 8; kernel++) {
+            for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+                runKernel(kernel);
+            }
+        }
+        String[] names = {"distance(pow)", "distance", "range(sqrt)", "range(square)", "angle(acos)", "angle(atan2)", "normal(loop)", "normal(floor)"};
+        long[] times = new long[names.length];
+        for (int kernel = 0; kernel < names.length; kernel++) {
+            long start_time = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                runKernel(kernel);
+            }
+            times[kernel] = System.nanoTime() - start_time;
+        }
+        for (int kernel = 0; kernel < names.length; kernel++) {
+            double ns_per_call = (double) times[kernel] / ROUNDS / SAMPLE_NUM;
+            String speedup = kernel % 2 == 1 ? String.format(", speedup: %.2f", (double) times[kernel - 1] / times[kernel]) : "";
+            System.out.println(String.format("%-14s %.2f ns per call%s", names[kernel], ns_per_call, speedup));
+        }
+        double max_angle_error = 0;
+        for (int i = 0; i < SAMPLE_NUM; i++) {
+            double delta_x = xs_2[i] - xs_1[i];
+            double delta_y = ys_2[i] - ys_1[i];
+            double error = VectorUtil.getBetweenAngle(angleByAcos(delta_x, delta_y), VectorUtil.getAngleOfVectorRelativeToXCoordinate(delta_x, delta_y));
+            max_angle_error = Math.max(max_angle_error, error);
+        }
+        System.out.println(String.format("max difference of angles: %.3e rad, checksum: %.3f", max_angle_error, sink));
+    }
+
+    private static void runKernel(int kernel) {
+        double sum = 0;
+        int count = 0;
+        float range = 50;
+        for (int i = 0; i < SAMPLE_NUM; i++) {
+            switch (kernel) {
+                case 0:
+                    sum += distanceByPow(xs_1[i], ys_1[i], xs_2[i], ys_2[i]);
+                    break;
+                case 1:
+                    sum += DistanceUtil.distanceBetween(xs_1[i], ys_1[i], xs_2[i], ys_2[i]);
+                    break;
+                case 2:
+                    count += distanceByPow(xs_1[i], ys_1[i], xs_2[i], ys_2[i]) < range ? 1 : 0;
+                    break;
+                case 3:
+                    count += DistanceUtil.closerThan(xs_1[i], ys_1[i], xs_2[i], ys_2[i], range) ? 1 : 0;
+                    break;
+                case 4:
+                    sum += angleByAcos(xs_2[i] - xs_1[i], ys_2[i] - ys_1[i]);
+                    break;
+                case 5:
+                    sum += VectorUtil.getAngleOfVectorRelativeToXCoordinate(xs_2[i] - xs_1[i], ys_2[i] - ys_1[i]);
+                    break;
+                case 6:
+                    sum += normalAngleByLoop(xs_1[i] - ys_2[i]);
+                    break;
+                default:
+                    sum += VectorUtil.getNormalAngle(xs_1[i] - ys_2[i]);
+                    break;
+            }
+        }
+        sink += sum + count;
+    }
+
+    /** the distance as DistanceUtil calculated it before.
+     *
+     */
+    private static float distanceByPow(float coordinate_x_1, float coordinate_y_1, float coordinate_x_2, float coordinate_y_2) {
+        return (float) Math.sqrt(Math.pow(coordinate_x_1 - coordinate_x_2, 2) + Math.pow(coordinate_y_1 - coordinate_y_2, 2));
+    }
+
+    /** the angle as VectorUtil calculated it before.
+     *
+     */
+    private static double angleByAcos(double coordinate_x, double coordinate_y) {
+        float length_from_origin = (float) Math.sqrt(Math.pow(coordinate_x, 2) + Math.pow(coordinate_y, 2));
+        double angle = Math.acos(coordinate_x / length_from_origin);
+        if (coordinate_y < 0) {
+            angle = (2 * Math.PI - angle);
+        }
+        return angle;
+    }
+
+    /** the normal angle as VectorUtil calculated it before.
+     *
+     */
+    private static double normalAngleByLoop(double angle) {
+        angle += Math.PI * 4;
+        while (angle > Math.PI * 2) {
+            angle -= Math.PI * 2;
+        }
+        return angle;
+    }
+}
@@ -0,0 +1,130 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package experimentWithoutUI;
+
+import algorithm.RRT.RRTAlg;
+import algorithm.RRT.RRTConnectAlg;
+import algorithm.RRT.RRTStarAlg;
+import config.NonStaticInitConfig;
+import config.StaticInitConfig;
+import java.util.ArrayList;
+import util.RandomUtil;
+import world.model.Conflict;
+import world.model.Threat;
+import world.uav.UAVPath;
+
+/** This compares the planning time, iterations to the first path and path length of the planners, by planning from the uav base to every threat.
+ * RRT and RRT-Connect are planned rrt_planning_times_for_attacker+1 times and the shortest path is kept, as attackers do, while RRT* is planned rrt_star_planning_times_for_attacker+1 times.
+ * A planning which does not reach the target is retried, until a path reaches it or it has been retried 10 times.
+ * RRT is also planned with only the new vertices checked against the obstacles, to show the cost of checking the edges per iteration,
+ * which should stay within EDGE_CHECK_COST_BUDGET of the vertex only check. At last RRT is planned with the polygons of obstacles checked exactly.
+ *
+ * @author Yulin_Zhang
+ */
+public class PlannerExperiment {
+
+    /**
+     * the time per iteration with the edges checked is expected to be at most this ratio of the time with only the vertices checked.
+     *
+     */
+    private static final double EDGE_CHECK_COST_BUDGET = 1.25;
+
+    public static void main(String[] args) {
+        int[] obstacle_num_list = {10, 15, 17, 21};
+        int rounds = 5;
+        NonStaticInitConfig.master_seed = 0;
+        NonStaticInitConfig config = new NonStaticInitConfig();
+        config.setThreat_num(10);
+        for (int obstacle_num : obstacle_num_list) {
+            NonStaticInitConfig.obstacle_num = obstacle_num;
+            config.initObstacles();
+            config.initThreats();
+            RRTAlg rrt_alg = new RRTAlg(config.getUav_base().getCoordinate(), null, StaticInitConfig.rrt_goal_toward_probability, config.getBound_width(), config.getBound_height(), StaticInitConfig.rrt_iteration_times, StaticInitConfig.SPEED_OF_ATTACKER_ON_TASK, config.getObstacles(), new ArrayList<Conflict>(), 0);
+            rrt_alg.setRandom(RandomUtil.newRandom(NonStaticInitConfig.master_seed, 1));
+            RRTStarAlg rrt_star_alg = new RRTStarAlg(rrt_alg);
+            rrt_star_alg.setRandom(RandomUtil.newRandom(NonStaticInitConfig.master_seed, 2));
+            RRTConnectAlg rrt_connect_alg = new RRTConnectAlg(rrt_alg);
+            rrt_connect_alg.setRandom(RandomUtil.newRandom(NonStaticInitConfig.master_seed, 3));
+            System.out.println("obstacles: " + obstacle_num);
+            StaticInitConfig.rrt_check_edge_collision = false;
+            double vertex_check_cost = runPlanner("RRT(vertex)", rrt_alg, StaticInitConfig.rrt_planning_times_for_attacker + 1, config, rounds);
+            StaticInitConfig.rrt_check_edge_collision = true;
+            double edge_check_cost = runPlanner("RRT", rrt_alg, StaticInitConfig.rrt_planning_times_for_attacker + 1, config, rounds);
+            System.out.println(String.format("edge check cost per iteration: %.2f of vertex check, budget %.2f", edge_check_cost / vertex_check_cost, EDGE_CHECK_COST_BUDGET));
+            runPlanner("RRT*", rrt_star_alg, StaticInitConfig.rrt_star_planning_times_for_attacker + 1, config, rounds);
+            runPlanner("RRT-Connect", rrt_connect_alg, StaticInitConfig.rrt_planning_times_for_attacker + 1, config, rounds);
+            StaticInitConfig.exact_obstacle_collision = true;
+            runPlanner("RRT(exact)", rrt_alg, StaticInitConfig.rrt_planning_times_for_attacker + 1, config, rounds);
+            StaticInitConfig.exact_obstacle_collision = false;
+        }
+    }
+
+    /** plan with the planner and print the statistics.
+     *
+     * @return time per iteration in ns
+     */
+    private static double runPlanner(String name, RRTAlg rrt_alg, int planning_times, NonStaticInitConfig config, int rounds) {
+        float[] init_coordinate = config.getUav_base().getCoordinate();
+        long total_time = 0;
+        double total_path_length = 0;
+        int reached_num = 0;
+        int planning_num = 0;
+        long total_iterations = 0;
+        int build_num = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (Threat threat : config.getThreats()) {
+                rrt_alg.setGoal_coordinate(threat.getCoordinates());
+                long start_time = System.nanoTime();
+                UAVPath shortest_path = null;
+                int nums_of_trap = 0;
+                for (int i = 0; i < planning_times; i++) {
+                    UAVPath path = rrt_alg.buildPath(init_coordinate, 0);
+                    total_iterations += rrt_alg.getIterations_used();
+                    build_num++;
+                    if (!path.pathReachEndPoint(threat.getCoordinates())) {
+                        //retried as attackers do before any path reaches the target
+                        if (shortest_path == null && nums_of_trap < 10) {
+                            i--;
+                            nums_of_trap++;
+                        }
+                        continue;
+                    }
+                    if (shortest_path == null || path.getPath_length() < shortest_path.getPath_length()) {
+                        shortest_path = path;
+                    }
+                }
+                total_time += System.nanoTime() - start_time;
+                planning_num++;
+                if (shortest_path != null) {
+                    reached_num++;
+                    total_path_length += shortest_path.getPath_length();
+                }
+            }
+        }
+        System.out.println(String.format("%-11s time per planning: %.2f ms, iterations per run: %.0f, time per iteration: %.0f ns, path length: %.1f, reached: %d/%d", name, total_time / 1e6 / planning_num, (double) total_iterations / build_num, (double) total_time / total_iterations, reached_num == 0 ? 0 : total_path_length / reached_num, reached_num, planning_num));
+        return (double) total_time / total_iterations;
+    }
+}
@@ -25,6 +25,7 @@
  */
 package ui;
 
+import algorithm.RRT.CompactRRTTree;
 import algorithm.RRT.RRTNode;
 import algorithm.RRT.RRTTree;
 import config.StaticInitConfig;
@@ -129,15 +130,8 @@ public class MyGraphic {
         graphics.setStroke(new BasicStroke(2.0f)); //Set the width of the stroke
         UAVPath planned_path = uav.getFuturePath();
         int planned_path_size = planned_path.getWaypointNum();
-        float[] current_waypoint;
-        float[] next_waypoint;
-        for (int i = 0; i < planned_path_size; i++) {
-            current_waypoint = planned_path.getWaypoint(i).toFloatArray();
-            if (i + 1 < planned_path_size) {
-                next_waypoint = planned_path.getWaypoint(i + 1).toFloatArray();
-                graphics.drawLine((int) current_waypoint[0], (int) current_waypoint[1], (int) next_waypoint[0], (int) next_waypoint[1]);
-
-            }
+        for (int i = 0; i + 1 < planned_path_size; i++) {
+            graphics.drawLine((int) planned_path.getX(i), (int) planned_path.getY(i), (int) planned_path.getX(i + 1), (int) planned_path.getY(i + 1));
         }
 
         Stroke bs = new BasicStroke(2.0f, BasicStroke.CAP_BUTT,
@@ -149,12 +143,8 @@ public class MyGraphic {
             return;
         }
         planned_path_size = planned_path.getWaypointNum();
-        for (int i = 0; i < planned_path_size; i++) {
-            current_waypoint = planned_path.getWaypoint(i).toFloatArray();
-            if (i + 1 < planned_path_size) {
-                next_waypoint = planned_path.getWaypoint(i + 1).toFloatArray();
-                graphics.drawLine((int) current_waypoint[0], (int) current_waypoint[1], (int) next_waypoint[0], (int) next_waypoint[1]);
-            }
+        for (int i = 0; i + 1 < planned_path_size; i++) {
+            graphics.drawLine((int) planned_path.getX(i), (int) planned_path.getY(i), (int) planned_path.getX(i + 1), (int) planned_path.getY(i + 1));
         }
     }
 
@@ -167,6 +157,11 @@ public class MyGraphic {
         float[] current_waypoint;
         float[] next_waypoint;
         RRTTree rrt_tree = uav.getRrt_tree();
+        if (rrt_tree == null) {
+            drawCompactTree(graphics, uav.getCompact_rrt_tree());
+            drawCompactTree(graphics, uav.getCompact_goal_tree());
+            return;
+        }
         RRTNode root_node = rrt_tree.getNode(0);
         Queue<RRTNode> queue = new LinkedList<RRTNode>();
         queue.add(root_node);
@@ -184,6 +179,17 @@ public class MyGraphic {
         }
     }
 
+    private void drawCompactTree(Graphics2D graphics, CompactRRTTree compact_tree) {
+        if (compact_tree == null) {
+            return;
+        }
+        int node_num = compact_tree.getNodeCount();
+        for (int i = 1; i < node_num; i++) {
+            int parent = compact_tree.getParent(i);
+            graphics.drawLine((int) compact_tree.getX(parent), (int) compact_tree.getY(parent), (int) compact_tree.getX(i), (int) compact_tree.getY(i));
+        }
+    }
+
     public void drawObstacle(Graphics2D graphics, Obstacle obstacle, Color obstacle_center_color, Color obstacle_edge_color, Color obstacle_hightlight_color) {
         graphics.setComposite(AlphaComposite.SrcOver);
         graphics.setStroke(new BasicStroke(1f)); //Set the width of the stroke
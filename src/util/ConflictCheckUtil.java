@@ -26,12 +26,13 @@
 package util;
 
 import algorithm.RRT.RRTNode;
+import config.StaticInitConfig;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import ui.AnimationPanel;
 import world.model.Conflict;
 import world.model.Obstacle;
-import world.model.shape.Point;
+import world.uav.UAVPath;
 
 /** This class is a tool class and providing tool functions to check whether a given unit is conflicted with others.
  *
@@ -40,6 +41,12 @@ import world.model.shape.Point;
 public class ConflictCheckUtil {
     private static org.apache.log4j.Logger logger = org.apache.log4j.Logger.getLogger(AnimationPanel.class);
 
+    /**
+     * the mbr of obstacle is increased a little bit by this margin to keep a visible safe distance from obstacle and make it looks less dangerous.
+     *
+     */
+    public static final int OBSTACLE_MARGIN = 2;
+
     /**if current point is within given obstacles, then it means conflicted and return true, otherwise return false;
      * 
      * @param obstacles
@@ -50,20 +57,16 @@ public class ConflictCheckUtil {
      */
     public static boolean checkPointInObstacles(ArrayList<Obstacle> obstacles, float coordinate_x, float coordinate_y) {
         if (obstacles != null) {
-            for (Obstacle obstacle : obstacles) {
-                
-                Rectangle bound=null;
-                try{
-                 bound= obstacle.getShape().getBounds();
-                }catch(Exception e)
-                {
-                    logger.debug("error index"+obstacle.getIndex());
-                    logger.error(e);
+            int obstacle_num = obstacles.size();
+            for (int i = 0; i < obstacle_num; i++) {
+                Obstacle obstacle = obstacles.get(i);
+                Rectangle mbr = obstacle.getMbr();
+                if (mbr == null) {
+                    logger.debug("error index" + obstacle.getIndex());
+                    continue;
                 }
-                //increase a little bit obs_mbr to keep a visible safe distance from obstacle and make it looks less dangerous.
-                bound.setBounds(bound.x - 2, bound.y - 2, bound.width + 4, bound.height + 4);
-               
-                if (bound.contains(coordinate_x, coordinate_y)) {
+                if (withinBound(coordinate_x, coordinate_y, mbr.x - OBSTACLE_MARGIN, mbr.y - OBSTACLE_MARGIN, mbr.x + mbr.width + OBSTACLE_MARGIN, mbr.y + mbr.height + OBSTACLE_MARGIN)
+                        && pointInShape(obstacle, coordinate_x, coordinate_y)) {
                     return true;
                 }
             }
@@ -71,6 +74,17 @@ public class ConflictCheckUtil {
         return false;
     }
 
+    /** the same as checkPointInObstacles, but only the obstacles near the point are checked.
+     * 
+     * @param obstacle_index
+     * @param coordinate_x
+     * @param coordinate_y
+     * @return 
+     */
+    public static boolean checkPointInObstacles(ObstacleIndex obstacle_index, float coordinate_x, float coordinate_y) {
+        return obstacle_index != null && obstacle_index.containsPoint(coordinate_x, coordinate_y);
+    }
+
     /**if threat intersects with any other obstacle, then it means conflicted and return true, otherwise return false;
      * 
      * @param obstacles
@@ -79,26 +93,32 @@ public class ConflictCheckUtil {
      */
     public static boolean checkThreatInObstacles(ArrayList<Obstacle> obstacles, Rectangle threat_mbr) {
         if (obstacles != null) {
-            for (Obstacle obstacle : obstacles) {
-                
-                Rectangle obs_mbr=null;
-                try{
-                 obs_mbr= obstacle.getShape().getBounds();
-                }catch(Exception e)
-                {
-                    logger.debug("error index"+obstacle.getIndex());
-                    logger.error(e);
+            int obstacle_num = obstacles.size();
+            for (int i = 0; i < obstacle_num; i++) {
+                Obstacle obstacle = obstacles.get(i);
+                Rectangle mbr = obstacle.getMbr();
+                if (mbr == null) {
+                    logger.debug("error index" + obstacle.getIndex());
+                    continue;
                 }
-                //increase a little bit obs_mbr to keep a visible safe distance from obstacle and make it looks less dangerous.
-                obs_mbr.setBounds(obs_mbr.x - 2, obs_mbr.y - 2, obs_mbr.width + 4, obs_mbr.height + 4);
-               
-                if (obs_mbr.intersects(threat_mbr)) {
+                if (threat_mbr.intersects(mbr.x - OBSTACLE_MARGIN, mbr.y - OBSTACLE_MARGIN, mbr.width + 2 * OBSTACLE_MARGIN, mbr.height + 2 * OBSTACLE_MARGIN)
+                        && boundInShape(obstacle, threat_mbr.x - OBSTACLE_MARGIN, threat_mbr.y - OBSTACLE_MARGIN, threat_mbr.x + threat_mbr.width + OBSTACLE_MARGIN, threat_mbr.y + threat_mbr.height + OBSTACLE_MARGIN)) {
                     return true;
                 }
             }
         }
         return false;
     }
+
+    /** the same as checkThreatInObstacles, but only the obstacles near the threat are checked.
+     * 
+     * @param obstacle_index
+     * @param threat_mbr
+     * @return 
+     */
+    public static boolean checkThreatInObstacles(ObstacleIndex obstacle_index, Rectangle threat_mbr) {
+        return obstacle_index != null && obstacle_index.intersectsRectangle(threat_mbr);
+    }
     
     /** if the node planned by rrt is too close to a given uav waypoint at the same time step, then it means conflicted and returns true, otherwise returns false.
      * 
@@ -109,18 +129,31 @@ public class ConflictCheckUtil {
      */
     public static boolean checkUAVConflict(RRTNode new_node,Conflict uav_conflict)
     {
-         float uav_safe_conflict_dist=uav_conflict.getConflict_range();
+        float[] coordinate = new_node.getCoordinate();
+        return checkUAVConflict(coordinate[0], coordinate[1], new_node.getExpected_time_step(), uav_conflict);
+    }
+
+    /** if the point planned by rrt at the expected time step is too close to a given uav waypoint at the same time step, then it means conflicted and returns true, otherwise returns false.
+     * 
+     * @param coordinate_x
+     * @param coordinate_y
+     * @param new_node_exptected_time_step
+     * @param uav_conflict
+     * @return 
+     */
+    public static boolean checkUAVConflict(float coordinate_x, float coordinate_y, int new_node_exptected_time_step, Conflict uav_conflict)
+    {
         if(uav_conflict==null)
         {
             return false;
         }
-        int uav_conflict_size=uav_conflict.getPath_prefound().size();
-        int new_node_exptected_time_step=new_node.getExpected_time_step();
+        float uav_safe_conflict_dist=uav_conflict.getConflict_range();
+        UAVPath conflict_path=uav_conflict.getPath_snapshot();
+        int uav_conflict_size=conflict_path.getWaypointNum();
         if(new_node_exptected_time_step<uav_conflict_size)
         {
-            Point conflict_point=uav_conflict.getPath_prefound().get(new_node_exptected_time_step);
-            int conflict_time=conflict_point.getExptected_time_step();
-            if(conflict_time==new_node_exptected_time_step&& DistanceUtil.distanceBetween(conflict_point.toFloatArray(), new_node.getCoordinate())<uav_safe_conflict_dist)
+            int conflict_time=conflict_path.getExpected_time_step(new_node_exptected_time_step);
+            if(conflict_time==new_node_exptected_time_step&& DistanceUtil.closerThan((float) conflict_path.getX(new_node_exptected_time_step), (float) conflict_path.getY(new_node_exptected_time_step), coordinate_x, coordinate_y, uav_safe_conflict_dist))
             {
                 return true;
             }else if(conflict_time>new_node_exptected_time_step)
@@ -152,7 +185,7 @@ public class ConflictCheckUtil {
     public static boolean checkLineInObstacles(ArrayList<Obstacle> obstacles, float[] start_coord, float[] end_coord) {
         if (obstacles != null) {
             for (Obstacle obstacle : obstacles) {
-                if (ShapeIntersectionUtil.isIntersected(obstacle.getShape().getBounds(), start_coord, end_coord)) {
+                if (obstacle.getMbr() != null && ShapeIntersectionUtil.isIntersected(obstacle.getMbr(), start_coord, end_coord)) {
                     return true;
                 }
             }
@@ -160,6 +193,120 @@ public class ConflictCheckUtil {
         return false;
     }
     
+    /** if the segment intersects with any obstacle, then return true; otherwise return false.
+     * The obstacle is the same increased mbr (or polygon) as checkPointInObstacles, so a segment is free if and only if every point on it is free. 
+     * The obstacles whose mbr is apart from the bounding box of the segment are skipped first, then the end points are checked, 
+     * and the segment is clipped by the mbr only when both end points are outside. The polygon is checked only when the mbr is hit.
+     * 
+     * @param obstacles
+     * @param start_x
+     * @param start_y
+     * @param end_x
+     * @param end_y
+     * @return 
+     */
+    public static boolean checkSegmentInObstacles(ArrayList<Obstacle> obstacles, float start_x, float start_y, float end_x, float end_y) {
+        if (obstacles == null) {
+            return false;
+        }
+        float segment_min_x = Math.min(start_x, end_x);
+        float segment_max_x = Math.max(start_x, end_x);
+        float segment_min_y = Math.min(start_y, end_y);
+        float segment_max_y = Math.max(start_y, end_y);
+        int obstacle_num = obstacles.size();
+        for (int i = 0; i < obstacle_num; i++) {
+            Obstacle obstacle = obstacles.get(i);
+            Rectangle mbr = obstacle.getMbr();
+            if (mbr == null) {
+                continue;
+            }
+            float min_x = mbr.x - OBSTACLE_MARGIN;
+            float min_y = mbr.y - OBSTACLE_MARGIN;
+            float max_x = mbr.x + mbr.width + OBSTACLE_MARGIN;
+            float max_y = mbr.y + mbr.height + OBSTACLE_MARGIN;
+            if (segment_max_x < min_x || segment_min_x >= max_x || segment_max_y < min_y || segment_min_y >= max_y) {
+                continue;
+            }
+            if ((withinBound(end_x, end_y, min_x, min_y, max_x, max_y) || withinBound(start_x, start_y, min_x, min_y, max_x, max_y)
+                    || segmentCrossBound(start_x, start_y, end_x, end_y, min_x, min_y, max_x, max_y))
+                    && segmentInShape(obstacle, start_x, start_y, end_x, end_y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** the second stage of the checks after the increased mbr is hit, which checks the polygon of obstacle exactly if exact_obstacle_collision is on.
+     * The polygon is increased by OBSTACLE_MARGIN as the mbr is, so a point closer than the margin to its border is also in the obstacle.
+     * 
+     * @param obstacle
+     * @param coordinate_x
+     * @param coordinate_y
+     * @return true if the mbr is enough or the point is in the increased polygon
+     */
+    static boolean pointInShape(Obstacle obstacle, float coordinate_x, float coordinate_y) {
+        return !StaticInitConfig.exact_obstacle_collision || PolygonUtil.containsPoint(obstacle.getVertex_xs(), obstacle.getVertex_ys(), coordinate_x, coordinate_y, OBSTACLE_MARGIN);
+    }
+
+    static boolean segmentInShape(Obstacle obstacle, float start_x, float start_y, float end_x, float end_y) {
+        return !StaticInitConfig.exact_obstacle_collision || PolygonUtil.intersectsSegment(obstacle.getVertex_xs(), obstacle.getVertex_ys(), start_x, start_y, end_x, end_y, OBSTACLE_MARGIN);
+    }
+
+    /** the bound is expected to be increased by OBSTACLE_MARGIN already, so the corners of the increased polygon are a little conservative.
+     *
+     */
+    static boolean boundInShape(Obstacle obstacle, float min_x, float min_y, float max_x, float max_y) {
+        return !StaticInitConfig.exact_obstacle_collision || PolygonUtil.intersectsBound(obstacle.getVertex_xs(), obstacle.getVertex_ys(), min_x, min_y, max_x, max_y);
+    }
+
+    /** the same as checkSegmentInObstacles, but only the obstacles near the segment are checked.
+     * 
+     * @param obstacle_index
+     * @param start_x
+     * @param start_y
+     * @param end_x
+     * @param end_y
+     * @return 
+     */
+    public static boolean checkSegmentInObstacles(ObstacleIndex obstacle_index, float start_x, float start_y, float end_x, float end_y) {
+        return obstacle_index != null && obstacle_index.intersectsSegment(start_x, start_y, end_x, end_y);
+    }
+
+    static boolean withinBound(float coordinate_x, float coordinate_y, float min_x, float min_y, float max_x, float max_y) {
+        return coordinate_x >= min_x && coordinate_x < max_x && coordinate_y >= min_y && coordinate_y < max_y;
+    }
+
+    /** clip the segment by the slabs of the bound, and check whether any part of it is left.
+     * 
+     */
+    static boolean segmentCrossBound(float start_x, float start_y, float end_x, float end_y, float min_x, float min_y, float max_x, float max_y) {
+        float delta_x = end_x - start_x;
+        float delta_y = end_y - start_y;
+        float enter = 0;
+        float leave = 1;
+        if (delta_x == 0) {
+            if (start_x < min_x || start_x >= max_x) {
+                return false;
+            }
+        } else {
+            float t1 = (min_x - start_x) / delta_x;
+            float t2 = (max_x - start_x) / delta_x;
+            enter = Math.max(enter, Math.min(t1, t2));
+            leave = Math.min(leave, Math.max(t1, t2));
+            if (enter > leave) {
+                return false;
+            }
+        }
+        if (delta_y == 0) {
+            return start_y >= min_y && start_y < max_y;
+        }
+        float t1 = (min_y - start_y) / delta_y;
+        float t2 = (max_y - start_y) / delta_y;
+        enter = Math.max(enter, Math.min(t1, t2));
+        leave = Math.min(leave, Math.max(t1, t2));
+        return enter <= leave;
+    }
+
     /** return true if two rectangle intersects.
      * 
      * @param rect1
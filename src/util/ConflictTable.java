@@ -0,0 +1,136 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package util;
+
+import java.util.Arrays;
+import java.util.List;
+import world.model.Conflict;
+import world.uav.UAVPath;
+
+/** This is the conflicts of the uavs of higher index compiled into arrays indexed by time step, 
+ * so that checking a location at a time step only visits the waypoints of that time step instead of walking the path of every conflict.
+ * As ConflictCheckUtil.checkUAVConflict does, the i-th waypoint of a conflict path is only taken at time step i when its expected time step is i.
+ * The table does not follow the changes of the conflicts, it should be built again when they change.
+ *
+ * @author Yulin_Zhang
+ */
+public class ConflictTable {
+
+    /**
+     * the waypoints at time step t are [time_step_starts[t], time_step_starts[t+1]) of the arrays.
+     *
+     */
+    private int[] time_step_starts;
+    private float[] xs;
+    private float[] ys;
+    private float[] range_squares;
+    private int time_step_num = 0;
+
+    /** compile the conflicts of the uavs whose index is larger than the given one.
+     *
+     * @param conflicts
+     * @param uav_index
+     */
+    public ConflictTable(List<Conflict> conflicts, int uav_index) {
+        int[] counts = new int[16];
+        int entry_num = 0;
+        if (conflicts != null) {
+            for (Conflict conflict : conflicts) {
+                UAVPath path = conflict.getPath_snapshot();
+                if (conflict.getUav_index() <= uav_index || path == null) {
+                    continue;
+                }
+                int waypoint_num = path.getWaypointNum();
+                for (int time_step = 0; time_step < waypoint_num; time_step++) {
+                    if (path.getExpected_time_step(time_step) == time_step) {
+                        if (time_step >= counts.length) {
+                            counts = Arrays.copyOf(counts, Math.max(time_step + 1, counts.length * 2));
+                        }
+                        counts[time_step]++;
+                        time_step_num = Math.max(time_step_num, time_step + 1);
+                        entry_num++;
+                    }
+                }
+            }
+        }
+        time_step_starts = new int[time_step_num + 1];
+        for (int t = 0; t < time_step_num; t++) {
+            time_step_starts[t + 1] = time_step_starts[t] + counts[t];
+        }
+        xs = new float[entry_num];
+        ys = new float[entry_num];
+        range_squares = new float[entry_num];
+        if (entry_num == 0) {
+            return;
+        }
+        int[] fills = new int[time_step_num];
+        for (Conflict conflict : conflicts) {
+            UAVPath path = conflict.getPath_snapshot();
+            if (conflict.getUav_index() <= uav_index || path == null) {
+                continue;
+            }
+            float range = conflict.getConflict_range();
+            int waypoint_num = path.getWaypointNum();
+            for (int time_step = 0; time_step < waypoint_num; time_step++) {
+                if (path.getExpected_time_step(time_step) == time_step) {
+                    int entry = time_step_starts[time_step] + fills[time_step]++;
+                    xs[entry] = (float) path.getX(time_step);
+                    ys[entry] = (float) path.getY(time_step);
+                    range_squares[entry] = range * range;
+                }
+            }
+        }
+    }
+
+    /** check whether the location at the time step is too close to any waypoint of the conflicts at the same time step.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @param time_step
+     * @return
+     */
+    public boolean conflictAt(float coordinate_x, float coordinate_y, int time_step) {
+        if (time_step < 0 || time_step >= time_step_num) {
+            return false;
+        }
+        for (int entry = time_step_starts[time_step]; entry < time_step_starts[time_step + 1]; entry++) {
+            float delta_x = xs[entry] - coordinate_x;
+            float delta_y = ys[entry] - coordinate_y;
+            if (delta_x * delta_x + delta_y * delta_y < range_squares[entry]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** whether there is no waypoint to avoid.
+     *
+     * @return
+     */
+    public boolean isEmpty() {
+        return xs.length == 0;
+    }
+}
@@ -38,7 +38,68 @@ public class DistanceUtil {
      * @return 
      */
     public static float distanceBetween(float[] coordinate_node_1, float[] coordinate_node_2) {
-        float dist = (float) Math.sqrt(Math.pow(coordinate_node_1[0] - coordinate_node_2[0], 2) + Math.pow(coordinate_node_1[1] - coordinate_node_2[1], 2));
-        return dist;
+        return distanceBetween(coordinate_node_1[0], coordinate_node_1[1], coordinate_node_2[0], coordinate_node_2[1]);
+    }
+
+    /** calculate the distance between two points, given by their coordinates.
+     * 
+     * @param coordinate_x_1
+     * @param coordinate_y_1
+     * @param coordinate_x_2
+     * @param coordinate_y_2
+     * @return 
+     */
+    public static float distanceBetween(float coordinate_x_1, float coordinate_y_1, float coordinate_x_2, float coordinate_y_2) {
+        float delta_x = coordinate_x_1 - coordinate_x_2;
+        float delta_y = coordinate_y_1 - coordinate_y_2;
+        return (float) Math.sqrt(delta_x * delta_x + delta_y * delta_y);
+    }
+
+    /** calculate the square of distance between two points, which is compared with the square of a range instead of taking the root.
+     * 
+     * @param coordinate_node_1
+     * @param coordinate_node_2
+     * @return 
+     */
+    public static float distanceSquare(float[] coordinate_node_1, float[] coordinate_node_2) {
+        return distanceSquare(coordinate_node_1[0], coordinate_node_1[1], coordinate_node_2[0], coordinate_node_2[1]);
+    }
+
+    /** calculate the square of distance between two points, given by their coordinates.
+     * 
+     * @param coordinate_x_1
+     * @param coordinate_y_1
+     * @param coordinate_x_2
+     * @param coordinate_y_2
+     * @return 
+     */
+    public static float distanceSquare(float coordinate_x_1, float coordinate_y_1, float coordinate_x_2, float coordinate_y_2) {
+        float delta_x = coordinate_x_1 - coordinate_x_2;
+        float delta_y = coordinate_y_1 - coordinate_y_2;
+        return delta_x * delta_x + delta_y * delta_y;
+    }
+
+    /** check whether two points are closer than the range, without taking the root.
+     * 
+     * @param coordinate_node_1
+     * @param coordinate_node_2
+     * @param range
+     * @return 
+     */
+    public static boolean closerThan(float[] coordinate_node_1, float[] coordinate_node_2, float range) {
+        return distanceSquare(coordinate_node_1[0], coordinate_node_1[1], coordinate_node_2[0], coordinate_node_2[1]) < range * range;
+    }
+
+    /** check whether two points, given by their coordinates, are closer than the range, without taking the root.
+     * 
+     * @param coordinate_x_1
+     * @param coordinate_y_1
+     * @param coordinate_x_2
+     * @param coordinate_y_2
+     * @param range
+     * @return 
+     */
+    public static boolean closerThan(float coordinate_x_1, float coordinate_y_1, float coordinate_x_2, float coordinate_y_2, float range) {
+        return distanceSquare(coordinate_x_1, coordinate_y_1, coordinate_x_2, coordinate_y_2) < range * range;
     }
 }
@@ -0,0 +1,314 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package util;
+
+import config.StaticInitConfig;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Random;
+import world.model.Obstacle;
+
+/** This is a uniform grid index of the obstacles, which is built once from the obstacle list.
+ * The mbr of each obstacle is increased by ConflictCheckUtil.OBSTACLE_MARGIN and cached, and registered in every cell it covers, 
+ * so that a query only checks the obstacles registered in the cells it touches.
+ * The index does not follow the changes of the list, it should be built again after obstacles are added (see indexes).
+ * An occupancy grid of the world can be attached to answer most point tests in constant time.
+ *
+ * @author Yulin_Zhang
+ */
+public class ObstacleIndex {
+
+    private ArrayList<Obstacle> obstacles;
+    private Obstacle[] indexed_obstacles;
+    private float[] min_xs;
+    private float[] min_ys;
+    private float[] max_xs;
+    private float[] max_ys;
+
+    /**
+     * the grid covers the increased mbrs of all the obstacles, the obstacles of cell i are cell_obstacles[cell_starts[i]..cell_starts[i+1]).
+     *
+     */
+    private float origin_x;
+    private float origin_y;
+    private float grid_max_x;
+    private float grid_max_y;
+    private float cell_size;
+    private int col_num = 0;
+    private int row_num = 0;
+    private int[] cell_starts;
+    private int[] cell_obstacles;
+    private OccupancyGrid occupancy_grid;
+
+    public ObstacleIndex(ArrayList<Obstacle> obstacles) {
+        this.obstacles = obstacles;
+        int obstacle_num = obstacles == null ? 0 : obstacles.size();
+        indexed_obstacles = new Obstacle[obstacle_num];
+        min_xs = new float[obstacle_num];
+        min_ys = new float[obstacle_num];
+        max_xs = new float[obstacle_num];
+        max_ys = new float[obstacle_num];
+        int margin = ConflictCheckUtil.OBSTACLE_MARGIN;
+        float total_size = 0;
+        int indexed_num = 0;
+        origin_x = Float.MAX_VALUE;
+        origin_y = Float.MAX_VALUE;
+        grid_max_x = -Float.MAX_VALUE;
+        grid_max_y = -Float.MAX_VALUE;
+        for (int i = 0; i < obstacle_num; i++) {
+            indexed_obstacles[i] = obstacles.get(i);
+            Rectangle mbr = indexed_obstacles[i].getMbr();
+            if (mbr == null) {
+                //an empty bound, which is never registered
+                min_xs[i] = 0;
+                max_xs[i] = -1;
+                continue;
+            }
+            min_xs[i] = mbr.x - margin;
+            min_ys[i] = mbr.y - margin;
+            max_xs[i] = mbr.x + mbr.width + margin;
+            max_ys[i] = mbr.y + mbr.height + margin;
+            origin_x = Math.min(origin_x, min_xs[i]);
+            origin_y = Math.min(origin_y, min_ys[i]);
+            grid_max_x = Math.max(grid_max_x, max_xs[i]);
+            grid_max_y = Math.max(grid_max_y, max_ys[i]);
+            total_size += Math.max(max_xs[i] - min_xs[i], max_ys[i] - min_ys[i]);
+            indexed_num++;
+        }
+        if (indexed_num == 0) {
+            return;
+        }
+        //a cell is about the size of an average obstacle, and the grid is kept within a few cells per obstacle
+        cell_size = Math.max(1, total_size / indexed_num);
+        while (true) {
+            col_num = (int) ((grid_max_x - origin_x) / cell_size) + 1;
+            row_num = (int) ((grid_max_y - origin_y) / cell_size) + 1;
+            if ((long) col_num * row_num <= 16L * indexed_num + 16) {
+                break;
+            }
+            cell_size *= 2;
+        }
+
+        cell_starts = new int[col_num * row_num + 1];
+        for (int i = 0; i < obstacle_num; i++) {
+            if (max_xs[i] < min_xs[i]) {
+                continue;
+            }
+            for (int row = rowOf(min_ys[i]); row <= rowOf(max_ys[i]); row++) {
+                for (int col = colOf(min_xs[i]); col <= colOf(max_xs[i]); col++) {
+                    cell_starts[row * col_num + col + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < col_num * row_num; cell++) {
+            cell_starts[cell + 1] += cell_starts[cell];
+        }
+        cell_obstacles = new int[cell_starts[col_num * row_num]];
+        int[] cell_fills = new int[col_num * row_num];
+        for (int i = 0; i < obstacle_num; i++) {
+            if (max_xs[i] < min_xs[i]) {
+                continue;
+            }
+            for (int row = rowOf(min_ys[i]); row <= rowOf(max_ys[i]); row++) {
+                for (int col = colOf(min_xs[i]); col <= colOf(max_xs[i]); col++) {
+                    int cell = row * col_num + col;
+                    cell_obstacles[cell_starts[cell] + cell_fills[cell]++] = i;
+                }
+            }
+        }
+    }
+
+    /** check whether the point is within any increased mbr.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @return
+     */
+    public boolean containsPoint(float coordinate_x, float coordinate_y) {
+        if (occupancy_grid != null) {
+            int state = occupancy_grid.stateOf(coordinate_x, coordinate_y);
+            if (state != OccupancyGrid.PARTIAL) {
+                return state == OccupancyGrid.COVERED;
+            }
+        }
+        if (col_num == 0 || coordinate_x < origin_x || coordinate_x >= grid_max_x || coordinate_y < origin_y || coordinate_y >= grid_max_y) {
+            return false;
+        }
+        int cell = rowOf(coordinate_y) * col_num + colOf(coordinate_x);
+        for (int k = cell_starts[cell]; k < cell_starts[cell + 1]; k++) {
+            int i = cell_obstacles[k];
+            if (ConflictCheckUtil.withinBound(coordinate_x, coordinate_y, min_xs[i], min_ys[i], max_xs[i], max_ys[i])
+                    && ConflictCheckUtil.pointInShape(indexed_obstacles[i], coordinate_x, coordinate_y)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** check whether the segment intersects with any increased mbr, in the same order of tests as ConflictCheckUtil.checkSegmentInObstacles.
+     * An obstacle covering several cells may be tested more than once.
+     *
+     * @param start_x
+     * @param start_y
+     * @param end_x
+     * @param end_y
+     * @return
+     */
+    public boolean intersectsSegment(float start_x, float start_y, float end_x, float end_y) {
+        float segment_min_x = Math.min(start_x, end_x);
+        float segment_max_x = Math.max(start_x, end_x);
+        float segment_min_y = Math.min(start_y, end_y);
+        float segment_max_y = Math.max(start_y, end_y);
+        if (col_num == 0 || segment_max_x < origin_x || segment_min_x >= grid_max_x || segment_max_y < origin_y || segment_min_y >= grid_max_y) {
+            return false;
+        }
+        int max_row = rowOf(segment_max_y);
+        int max_col = colOf(segment_max_x);
+        for (int row = rowOf(segment_min_y); row <= max_row; row++) {
+            for (int col = colOf(segment_min_x); col <= max_col; col++) {
+                int cell = row * col_num + col;
+                for (int k = cell_starts[cell]; k < cell_starts[cell + 1]; k++) {
+                    int i = cell_obstacles[k];
+                    if (segment_max_x < min_xs[i] || segment_min_x >= max_xs[i] || segment_max_y < min_ys[i] || segment_min_y >= max_ys[i]) {
+                        continue;
+                    }
+                    if ((ConflictCheckUtil.withinBound(end_x, end_y, min_xs[i], min_ys[i], max_xs[i], max_ys[i])
+                            || ConflictCheckUtil.withinBound(start_x, start_y, min_xs[i], min_ys[i], max_xs[i], max_ys[i])
+                            || ConflictCheckUtil.segmentCrossBound(start_x, start_y, end_x, end_y, min_xs[i], min_ys[i], max_xs[i], max_ys[i]))
+                            && ConflictCheckUtil.segmentInShape(indexed_obstacles[i], start_x, start_y, end_x, end_y)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /** check whether the rectangle intersects with any increased mbr, as Rectangle.intersects does.
+     *
+     * @param rect
+     * @return
+     */
+    public boolean intersectsRectangle(Rectangle rect) {
+        if (col_num == 0 || rect.width <= 0 || rect.height <= 0) {
+            return false;
+        }
+        float rect_max_x = (float) rect.x + rect.width;
+        float rect_max_y = (float) rect.y + rect.height;
+        if (rect_max_x <= origin_x || rect.x >= grid_max_x || rect_max_y <= origin_y || rect.y >= grid_max_y) {
+            return false;
+        }
+        int max_row = rowOf(rect_max_y);
+        int max_col = colOf(rect_max_x);
+        int margin = ConflictCheckUtil.OBSTACLE_MARGIN;
+        for (int row = rowOf(rect.y); row <= max_row; row++) {
+            for (int col = colOf(rect.x); col <= max_col; col++) {
+                int cell = row * col_num + col;
+                for (int k = cell_starts[cell]; k < cell_starts[cell + 1]; k++) {
+                    int i = cell_obstacles[k];
+                    if (rect.x < max_xs[i] && rect_max_x > min_xs[i] && rect.y < max_ys[i] && rect_max_y > min_ys[i]
+                            && ConflictCheckUtil.boundInShape(indexed_obstacles[i], rect.x - margin, rect.y - margin, rect_max_x + margin, rect_max_y + margin)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /** rasterise the obstacles into an occupancy grid of the world, which is then used by containsPoint and sampleFreeLocation.
+     * The grid is kept if it has been built with the same bound and cell size, so the index can be shared by the planners.
+     *
+     * @param width width of the world
+     * @param height height of the world
+     * @param cell_size
+     */
+    public void buildOccupancyGrid(int width, int height, float cell_size) {
+        if (occupancy_grid != null && occupancy_grid.hasLayout(width, height, cell_size)) {
+            return;
+        }
+        OccupancyGrid grid = new OccupancyGrid(width, height, cell_size);
+        for (int i = 0; i < min_xs.length; i++) {
+            //a cell within the mbr may be out of the polygon, so no cell is covered in the exact mode
+            grid.markBound(min_xs[i], min_ys[i], max_xs[i], max_ys[i], !StaticInitConfig.exact_obstacle_collision);
+        }
+        grid.collectOpenCells();
+        this.occupancy_grid = grid;
+    }
+
+    /** sample a free location uniformly over the world with the occupancy grid.
+     * The covered cells are skipped, and a location in the cells along the borders of obstacles is checked exactly, 
+     * so that the space next to the obstacles is sampled as often as the rest.
+     *
+     * @param random
+     * @param coordinate buffer of the location
+     * @return false if there is no occupancy grid or all the cells are covered
+     */
+    public boolean sampleFreeLocation(Random random, float[] coordinate) {
+        if (occupancy_grid == null || !occupancy_grid.sampleOpenLocation(random, coordinate)) {
+            return false;
+        }
+        while (containsPoint(coordinate[0], coordinate[1])) {
+            occupancy_grid.sampleOpenLocation(random, coordinate);
+        }
+        return true;
+    }
+
+    /** check whether the index is built from the same obstacles as the list, in the same order.
+     * The obstacles are compared by reference, so that a list patched in place is detected as well.
+     *
+     * @param obstacles
+     * @return
+     */
+    public boolean indexes(ArrayList<Obstacle> obstacles) {
+        int obstacle_num = obstacles == null ? 0 : obstacles.size();
+        if (obstacle_num != indexed_obstacles.length) {
+            return false;
+        }
+        for (int i = 0; i < obstacle_num; i++) {
+            if (obstacles.get(i) != indexed_obstacles[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public OccupancyGrid getOccupancy_grid() {
+        return occupancy_grid;
+    }
+
+    public ArrayList<Obstacle> getObstacles() {
+        return obstacles;
+    }
+
+    private int colOf(float coordinate_x) {
+        return Math.max(0, Math.min(col_num - 1, (int) ((coordinate_x - origin_x) / cell_size)));
+    }
+
+    private int rowOf(float coordinate_y) {
+        return Math.max(0, Math.min(row_num - 1, (int) ((coordinate_y - origin_y) / cell_size)));
+    }
+}
@@ -0,0 +1,161 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package util;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/** This is a rasterised occupancy grid of the bounded world, which answers most point-in-obstacle tests in constant time.
+ * A cell is occupied if it touches any increased mbr of obstacles, and covered if it lies within one of them. 
+ * A point in a free cell is free and a point in a covered cell is in obstacles, only the points in the other occupied cells 
+ * (along the borders of obstacles) and out of the world need the exact test.
+ * The cells not covered are also listed so that free locations can be sampled without the covered cells, 
+ * a location sampled in an occupied cell still needs the exact test (see ObstacleIndex.sampleFreeLocation).
+ *
+ * @author Yulin_Zhang
+ */
+public class OccupancyGrid {
+
+    public static final int FREE = 0;
+    public static final int COVERED = 1;
+    public static final int PARTIAL = 2;
+
+    private float cell_size;
+    private int width;
+    private int height;
+    private int col_num;
+    private int row_num;
+    private BitSet occupied_cells;
+    private BitSet covered_cells;
+    private int[] open_cells = new int[0];
+    private int open_cell_num = 0;
+
+    public OccupancyGrid(int width, int height, float cell_size) {
+        this.width = width;
+        this.height = height;
+        this.cell_size = cell_size;
+        this.col_num = Math.max(1, (int) Math.ceil(width / cell_size));
+        this.row_num = Math.max(1, (int) Math.ceil(height / cell_size));
+        this.occupied_cells = new BitSet(col_num * row_num);
+        this.covered_cells = new BitSet(col_num * row_num);
+    }
+
+    /** mark the cells touched by the bound [min_x, max_x) x [min_y, max_y) as occupied, and the cells within it as covered.
+     *
+     * @param min_x
+     * @param min_y
+     * @param max_x
+     * @param max_y
+     * @param cover false if the cells within the bound are not sure to be in obstacles
+     */
+    public void markBound(float min_x, float min_y, float max_x, float max_y, boolean cover) {
+        if (max_x <= min_x || max_y <= min_y || max_x <= 0 || max_y <= 0 || min_x >= width || min_y >= height) {
+            return;
+        }
+        int min_col = Math.max(0, (int) Math.floor(min_x / cell_size));
+        int max_col = Math.min(col_num - 1, (int) Math.ceil(max_x / cell_size) - 1);
+        int min_row = Math.max(0, (int) Math.floor(min_y / cell_size));
+        int max_row = Math.min(row_num - 1, (int) Math.ceil(max_y / cell_size) - 1);
+        for (int row = min_row; row <= max_row; row++) {
+            boolean row_covered = cover && row * cell_size >= min_y && (row + 1) * cell_size <= max_y;
+            for (int col = min_col; col <= max_col; col++) {
+                int cell = row * col_num + col;
+                occupied_cells.set(cell);
+                if (row_covered && col * cell_size >= min_x && (col + 1) * cell_size <= max_x) {
+                    covered_cells.set(cell);
+                }
+            }
+        }
+    }
+
+    /** the state of the cell where the point is.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @return FREE, COVERED, or PARTIAL if the exact test is needed
+     */
+    public int stateOf(float coordinate_x, float coordinate_y) {
+        if (coordinate_x < 0 || coordinate_y < 0 || coordinate_x >= width || coordinate_y >= height) {
+            return PARTIAL;
+        }
+        int cell = (int) (coordinate_y / cell_size) * col_num + (int) (coordinate_x / cell_size);
+        if (!occupied_cells.get(cell)) {
+            return FREE;
+        }
+        return covered_cells.get(cell) ? COVERED : PARTIAL;
+    }
+
+    /** sample a location within the cells not covered into the buffer, the location may be in obstacles if its cell is occupied.
+     * The cells on the right and bottom borders may be cut by the bound, so a location is sampled within the whole cell 
+     * and sampled again if it is out of the bound, which keeps the locations uniform over the bound.
+     *
+     * @param random
+     * @param coordinate buffer of the location
+     * @return false if all the cells are covered
+     */
+    public boolean sampleOpenLocation(Random random, float[] coordinate) {
+        if (open_cell_num == 0) {
+            return false;
+        }
+        do {
+            int cell = open_cells[random.nextInt(open_cell_num)];
+            coordinate[0] = ((cell % col_num) + random.nextFloat()) * cell_size;
+            coordinate[1] = ((cell / col_num) + random.nextFloat()) * cell_size;
+        } while (coordinate[0] >= width || coordinate[1] >= height);
+        return true;
+    }
+
+    /** list the cells not covered, which should be called after all the obstacles are marked.
+     *
+     */
+    public void collectOpenCells() {
+        int cell_num = col_num * row_num;
+        open_cells = new int[cell_num - covered_cells.cardinality()];
+        open_cell_num = 0;
+        for (int cell = covered_cells.nextClearBit(0); cell < cell_num; cell = covered_cells.nextClearBit(cell + 1)) {
+            open_cells[open_cell_num++] = cell;
+        }
+    }
+
+    /** check whether the grid is rasterised over the same bound with the same cell size.
+     *
+     * @param width
+     * @param height
+     * @param cell_size
+     * @return
+     */
+    public boolean hasLayout(int width, int height, float cell_size) {
+        return this.width == width && this.height == height && this.cell_size == cell_size;
+    }
+
+    public int getOpen_cell_num() {
+        return open_cell_num;
+    }
+
+    public float getCell_size() {
+        return cell_size;
+    }
+}
@@ -0,0 +1,163 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package util;
+
+import java.util.Arrays;
+
+/** This is a uniform grid of points, which is rebuilt from scratch whenever the points move, and answers which points are within a range.
+ * The points are sorted by cell in a counting pass, so building costs linear time in the number of points and cells.
+ * The points out of bound are put in the cells on the border, which keeps the neighbour cells of a query correct.
+ *
+ * @author Yulin_Zhang
+ */
+public class PointGrid {
+
+    private float cell_size;
+    private int col_num;
+    private int row_num;
+
+    /**
+     * points of cell c are cell_points[cell_starts[c]] to cell_points[cell_starts[c + 1] - 1].
+     *
+     */
+    private int[] cell_starts;
+    private int[] cell_points;
+    private int[] point_cells;
+    private float[] point_xs;
+    private float[] point_ys;
+    private int point_num = 0;
+
+    /** create the grid of the bounded world.
+     *
+     * @param width
+     * @param height
+     * @param cell_size
+     */
+    public PointGrid(int width, int height, float cell_size) {
+        this.cell_size = cell_size;
+        this.col_num = Math.max(1, (int) Math.ceil(width / cell_size));
+        this.row_num = Math.max(1, (int) Math.ceil(height / cell_size));
+        this.cell_starts = new int[col_num * row_num + 1];
+        this.cell_points = new int[16];
+        this.point_cells = new int[16];
+        this.point_xs = new float[16];
+        this.point_ys = new float[16];
+    }
+
+    /** remove all the points, the buffers are kept.
+     *
+     */
+    public void clear() {
+        point_num = 0;
+    }
+
+    /** add a point before the grid is built.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @return the index of the point, which equals to the number of points added before it.
+     */
+    public int add(float coordinate_x, float coordinate_y) {
+        if (point_num == point_xs.length) {
+            int capacity = point_num * 2;
+            point_xs = Arrays.copyOf(point_xs, capacity);
+            point_ys = Arrays.copyOf(point_ys, capacity);
+            point_cells = Arrays.copyOf(point_cells, capacity);
+            cell_points = new int[capacity];
+        }
+        point_xs[point_num] = coordinate_x;
+        point_ys[point_num] = coordinate_y;
+        return point_num++;
+    }
+
+    /** sort the points added into their cells.
+     *
+     */
+    public void build() {
+        Arrays.fill(cell_starts, 0);
+        for (int point = 0; point < point_num; point++) {
+            int cell = rowOf(point_ys[point]) * col_num + colOf(point_xs[point]);
+            point_cells[point] = cell;
+            cell_starts[cell + 1]++;
+        }
+        int cell_num = col_num * row_num;
+        for (int cell = 0; cell < cell_num; cell++) {
+            cell_starts[cell + 1] += cell_starts[cell];
+        }
+        //each start is moved to the end of its cell while filling, and shifted back to the start after
+        for (int point = 0; point < point_num; point++) {
+            cell_points[cell_starts[point_cells[point]]++] = point;
+        }
+        for (int cell = cell_num; cell > 0; cell--) {
+            cell_starts[cell] = cell_starts[cell - 1];
+        }
+        cell_starts[0] = 0;
+    }
+
+    /** find the points closer than the range to the given coordinate.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @param range
+     * @param result buffer of the indexes found, the points beyond its length are dropped
+     * @return number of indexes stored in result
+     */
+    public int withinRange(float coordinate_x, float coordinate_y, float range, int[] result) {
+        float range_square = range * range;
+        int found = 0;
+        int max_row = rowOf(coordinate_y + range);
+        int max_col = colOf(coordinate_x + range);
+        for (int row = rowOf(coordinate_y - range); row <= max_row; row++) {
+            for (int col = colOf(coordinate_x - range); col <= max_col; col++) {
+                int cell = row * col_num + col;
+                for (int i = cell_starts[cell]; i < cell_starts[cell + 1]; i++) {
+                    int point = cell_points[i];
+                    float delta_x = point_xs[point] - coordinate_x;
+                    float delta_y = point_ys[point] - coordinate_y;
+                    if (delta_x * delta_x + delta_y * delta_y < range_square) {
+                        if (found == result.length) {
+                            return found;
+                        }
+                        result[found++] = point;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        return point_num;
+    }
+
+    private int colOf(float coordinate_x) {
+        return Math.max(0, Math.min(col_num - 1, (int) Math.floor(coordinate_x / cell_size)));
+    }
+
+    private int rowOf(float coordinate_y) {
+        return Math.max(0, Math.min(row_num - 1, (int) Math.floor(coordinate_y / cell_size)));
+    }
+}
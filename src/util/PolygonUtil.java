@@ -27,7 +27,8 @@ package util;
 
 import java.awt.Polygon;
 
-/** This is a tool class and it provides the tool functions to retrieve polygons from ontology string.
+/** This is a tool class and it provides the tool functions to retrieve polygons from ontology string, and the exact collision checks of polygons.
+ * The checks work on the vertex arrays of polygon and do not call the methods of Polygon, which rebuild their state.
  *
  * @author Yulin_Zhang
  */
@@ -50,4 +51,130 @@ public class PolygonUtil {
         }
         return polygon;
     }
+
+    /** check whether the point is within the polygon, by counting the edges crossed by the ray toward +x.
+     * 
+     * @param vertex_xs
+     * @param vertex_ys
+     * @param coordinate_x
+     * @param coordinate_y
+     * @return 
+     */
+    public static boolean containsPoint(float[] vertex_xs, float[] vertex_ys, float coordinate_x, float coordinate_y) {
+        boolean inside = false;
+        int vertex_num = vertex_xs.length;
+        for (int i = 0, j = vertex_num - 1; i < vertex_num; j = i++) {
+            if ((vertex_ys[i] > coordinate_y) != (vertex_ys[j] > coordinate_y)
+                    && coordinate_x < (vertex_xs[j] - vertex_xs[i]) * (coordinate_y - vertex_ys[i]) / (vertex_ys[j] - vertex_ys[i]) + vertex_xs[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    /** check whether the point is within the polygon or closer than the margin to its border.
+     * 
+     * @param vertex_xs
+     * @param vertex_ys
+     * @param coordinate_x
+     * @param coordinate_y
+     * @param margin
+     * @return 
+     */
+    public static boolean containsPoint(float[] vertex_xs, float[] vertex_ys, float coordinate_x, float coordinate_y, float margin) {
+        if (containsPoint(vertex_xs, vertex_ys, coordinate_x, coordinate_y)) {
+            return true;
+        }
+        float margin_square = margin * margin;
+        int vertex_num = vertex_xs.length;
+        for (int i = 0, j = vertex_num - 1; i < vertex_num; j = i++) {
+            if (distanceSquareToSegment(coordinate_x, coordinate_y, vertex_xs[j], vertex_ys[j], vertex_xs[i], vertex_ys[i]) < margin_square) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** check whether the segment enters the polygon or comes closer than the margin to its border.
+     * 
+     * @param vertex_xs
+     * @param vertex_ys
+     * @param start_x
+     * @param start_y
+     * @param end_x
+     * @param end_y
+     * @param margin
+     * @return 
+     */
+    public static boolean intersectsSegment(float[] vertex_xs, float[] vertex_ys, float start_x, float start_y, float end_x, float end_y, float margin) {
+        if (containsPoint(vertex_xs, vertex_ys, end_x, end_y) || containsPoint(vertex_xs, vertex_ys, start_x, start_y)) {
+            return true;
+        }
+        float margin_square = margin * margin;
+        int vertex_num = vertex_xs.length;
+        for (int i = 0, j = vertex_num - 1; i < vertex_num; j = i++) {
+            float edge_start_x = vertex_xs[j];
+            float edge_start_y = vertex_ys[j];
+            float edge_end_x = vertex_xs[i];
+            float edge_end_y = vertex_ys[i];
+            if (segmentsCross(start_x, start_y, end_x, end_y, edge_start_x, edge_start_y, edge_end_x, edge_end_y)) {
+                return true;
+            }
+            //the segments touching each other are within the distance of their end points
+            if (distanceSquareToSegment(start_x, start_y, edge_start_x, edge_start_y, edge_end_x, edge_end_y) < margin_square
+                    || distanceSquareToSegment(end_x, end_y, edge_start_x, edge_start_y, edge_end_x, edge_end_y) < margin_square
+                    || distanceSquareToSegment(edge_start_x, edge_start_y, start_x, start_y, end_x, end_y) < margin_square
+                    || distanceSquareToSegment(edge_end_x, edge_end_y, start_x, start_y, end_x, end_y) < margin_square) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** check whether the bound [min_x, max_x) x [min_y, max_y) intersects with the polygon.
+     * 
+     * @param vertex_xs
+     * @param vertex_ys
+     * @param min_x
+     * @param min_y
+     * @param max_x
+     * @param max_y
+     * @return 
+     */
+    public static boolean intersectsBound(float[] vertex_xs, float[] vertex_ys, float min_x, float min_y, float max_x, float max_y) {
+        int vertex_num = vertex_xs.length;
+        for (int i = 0, j = vertex_num - 1; i < vertex_num; j = i++) {
+            if (ConflictCheckUtil.withinBound(vertex_xs[i], vertex_ys[i], min_x, min_y, max_x, max_y)
+                    || ConflictCheckUtil.segmentCrossBound(vertex_xs[j], vertex_ys[j], vertex_xs[i], vertex_ys[i], min_x, min_y, max_x, max_y)) {
+                return true;
+            }
+        }
+        //no border crosses the bound, so the bound is either inside or outside the polygon
+        return containsPoint(vertex_xs, vertex_ys, (min_x + max_x) / 2, (min_y + max_y) / 2);
+    }
+
+    private static boolean segmentsCross(float start_x1, float start_y1, float end_x1, float end_y1, float start_x2, float start_y2, float end_x2, float end_y2) {
+        float d1 = cross(start_x2, start_y2, end_x2, end_y2, start_x1, start_y1);
+        float d2 = cross(start_x2, start_y2, end_x2, end_y2, end_x1, end_y1);
+        float d3 = cross(start_x1, start_y1, end_x1, end_y1, start_x2, start_y2);
+        float d4 = cross(start_x1, start_y1, end_x1, end_y1, end_x2, end_y2);
+        return ((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0));
+    }
+
+    private static float cross(float origin_x, float origin_y, float end_x, float end_y, float point_x, float point_y) {
+        return (end_x - origin_x) * (point_y - origin_y) - (end_y - origin_y) * (point_x - origin_x);
+    }
+
+    private static float distanceSquareToSegment(float point_x, float point_y, float start_x, float start_y, float end_x, float end_y) {
+        float delta_x = end_x - start_x;
+        float delta_y = end_y - start_y;
+        float length_square = delta_x * delta_x + delta_y * delta_y;
+        float ratio = 0;
+        if (length_square > 0) {
+            ratio = Math.max(0, Math.min(1, ((point_x - start_x) * delta_x + (point_y - start_y) * delta_y) / length_square));
+        }
+        float diff_x = start_x + ratio * delta_x - point_x;
+        float diff_y = start_y + ratio * delta_y - point_y;
+        return diff_x * diff_x + diff_y * diff_y;
+    }
 }
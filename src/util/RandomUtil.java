@@ -0,0 +1,72 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package util;
+
+import config.NonStaticInitConfig;
+import java.util.Random;
+
+/** This is a tool class and provide the random sources derived from the master seed, so that a run can be reproduced.
+ * Every consumer (the world generation, each attacker, each planner) owns a Random of its own stream, 
+ * which does not depend on the order or the threads the others draw numbers in.
+ *
+ * @author Yulin_Zhang
+ */
+public class RandomUtil {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /** derive the seed of a stream from a parent seed, with the mixing function of SplitMix64.
+     * 
+     * @param seed
+     * @param stream
+     * @return 
+     */
+    public static long deriveSeed(long seed, long stream) {
+        long z = seed + (stream + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** derive the seed of a stream from the master seed in NonStaticInitConfig.
+     * 
+     * @param stream
+     * @return 
+     */
+    public static long deriveSeed(long stream) {
+        return deriveSeed(NonStaticInitConfig.master_seed, stream);
+    }
+
+    /** create the random source of a stream derived from the given seed.
+     * 
+     * @param seed
+     * @param stream
+     * @return 
+     */
+    public static Random newRandom(long seed, long stream) {
+        return new Random(deriveSeed(seed, stream));
+    }
+}
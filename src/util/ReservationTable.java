@@ -0,0 +1,272 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package util;
+
+import java.util.Arrays;
+import world.uav.UAVPath;
+
+/** This is the space-time reservation table shared by the attackers, where each attacker reserves the waypoints of its future path 
+ * in the grid cell and the time step it will be there, and the planners check a location at a time step against the reservations nearby.
+ * The cost of a check depends on the reservations in the few cells around the location at that time step, instead of the number of uavs.
+ * 
+ * The time steps are absolute (the time step of world). The time slices are kept in a ring, whose slices before the current time step are recycled.
+ * A new reservation of an attacker replaces its old ones by increasing its generation, the old entries are then ignored and recycled with their slices.
+ * The table is written between the plannings and only read during the plannings.
+ *
+ * @author Yulin_Zhang
+ */
+public class ReservationTable {
+
+    private static final int NIL = -1;
+
+    private float cell_size;
+    private int col_num;
+    private int row_num;
+
+    /**
+     * the ring of time slices, the slice of time step t is at t & (capacity - 1) if slice_times of it is t.
+     *
+     */
+    private int[][] slice_cell_heads;
+    private int[] slice_times;
+    private int current_time_step = 0;
+
+    /**
+     * the entries of reservation, linked in the list of their cell in the slice.
+     *
+     */
+    private float[] entry_xs;
+    private float[] entry_ys;
+    private int[] entry_uavs;
+    private int[] entry_generations;
+    private int[] entry_nexts;
+    private int entry_num = 0;
+    private int free_entry = NIL;
+    private int[] uav_generations = new int[16];
+    private int live_entry_num = 0;
+
+    /** create the table of the bounded world, the cell size should be no less than the conflict range.
+     *
+     * @param width
+     * @param height
+     * @param cell_size
+     */
+    public ReservationTable(int width, int height, float cell_size) {
+        this.cell_size = cell_size;
+        this.col_num = Math.max(1, (int) Math.ceil(width / cell_size));
+        this.row_num = Math.max(1, (int) Math.ceil(height / cell_size));
+        slice_cell_heads = new int[64][];
+        slice_times = new int[64];
+        Arrays.fill(slice_times, NIL);
+        entry_xs = new float[256];
+        entry_ys = new float[256];
+        entry_uavs = new int[256];
+        entry_generations = new int[256];
+        entry_nexts = new int[256];
+    }
+
+    /** drop the slices before the time step, which are in the past.
+     *
+     * @param time_step
+     */
+    public void advanceTo(int time_step) {
+        for (int slot = 0; slot < slice_times.length; slot++) {
+            if (slice_times[slot] != NIL && slice_times[slot] < time_step) {
+                recycleSlice(slot);
+            }
+        }
+        current_time_step = time_step;
+    }
+
+    /** reserve the waypoints of the path for the uav, the first waypoint is at the given time step and each following one a step later.
+     * The reservations made before for the uav are released.
+     *
+     * @param uav_index
+     * @param path
+     * @param first_time_step
+     */
+    public void reserve(int uav_index, UAVPath path, int first_time_step) {
+        release(uav_index);
+        int generation = uav_generations[uav_index];
+        int time_step = first_time_step;
+        int waypoint_num = path.getWaypointNum();
+        for (int i = 0; i < waypoint_num; i++) {
+            if (time_step >= current_time_step) {
+                float coordinate_x = (float) path.getX(i);
+                float coordinate_y = (float) path.getY(i);
+                int[] cell_heads = sliceOf(time_step, true);
+                int cell = rowOf(coordinate_y) * col_num + colOf(coordinate_x);
+                int entry = newEntry();
+                entry_xs[entry] = coordinate_x;
+                entry_ys[entry] = coordinate_y;
+                entry_uavs[entry] = uav_index;
+                entry_generations[entry] = generation;
+                entry_nexts[entry] = cell_heads[cell];
+                cell_heads[cell] = entry;
+                live_entry_num++;
+            }
+            time_step++;
+        }
+    }
+
+    /** release the reservations of the uav.
+     *
+     * @param uav_index
+     */
+    public void release(int uav_index) {
+        if (uav_index >= uav_generations.length) {
+            uav_generations = Arrays.copyOf(uav_generations, Math.max(uav_index + 1, uav_generations.length * 2));
+        }
+        uav_generations[uav_index]++;
+    }
+
+    /** check whether the location at the time step is closer than the range to the reservation of any uav whose index is larger than the given one.
+     *
+     * @param coordinate_x
+     * @param coordinate_y
+     * @param time_step
+     * @param uav_index
+     * @param range
+     * @return
+     */
+    public boolean isReserved(float coordinate_x, float coordinate_y, int time_step, int uav_index, float range) {
+        int[] cell_heads = sliceOf(time_step, false);
+        if (cell_heads == null) {
+            return false;
+        }
+        float range_square = range * range;
+        int max_row = rowOf(coordinate_y + range);
+        int max_col = colOf(coordinate_x + range);
+        for (int row = rowOf(coordinate_y - range); row <= max_row; row++) {
+            for (int col = colOf(coordinate_x - range); col <= max_col; col++) {
+                for (int entry = cell_heads[row * col_num + col]; entry != NIL; entry = entry_nexts[entry]) {
+                    int entry_uav = entry_uavs[entry];
+                    if (entry_uav <= uav_index || entry_generations[entry] != uav_generations[entry_uav]) {
+                        continue;
+                    }
+                    float delta_x = entry_xs[entry] - coordinate_x;
+                    float delta_y = entry_ys[entry] - coordinate_y;
+                    if (delta_x * delta_x + delta_y * delta_y < range_square) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /** whether nothing is reserved, the released reservations are counted until their slices are recycled.
+     *
+     * @return
+     */
+    public boolean isEmpty() {
+        return live_entry_num == 0;
+    }
+
+    private int[] sliceOf(int time_step, boolean create) {
+        if (time_step < current_time_step) {
+            return null;
+        }
+        int slot = time_step & (slice_times.length - 1);
+        if (slice_times[slot] == time_step) {
+            return slice_cell_heads[slot];
+        }
+        if (!create) {
+            return null;
+        }
+        if (slice_times[slot] != NIL) {
+            //the ring is too short for the time steps reserved
+            growRing(time_step);
+            slot = time_step & (slice_times.length - 1);
+        }
+        if (slice_cell_heads[slot] == null) {
+            slice_cell_heads[slot] = new int[col_num * row_num];
+        }
+        Arrays.fill(slice_cell_heads[slot], NIL);
+        slice_times[slot] = time_step;
+        return slice_cell_heads[slot];
+    }
+
+    private void growRing(int time_step) {
+        int capacity = slice_times.length;
+        while (time_step - current_time_step >= capacity) {
+            capacity *= 2;
+        }
+        capacity *= 2;
+        int[][] new_cell_heads = new int[capacity][];
+        int[] new_times = new int[capacity];
+        Arrays.fill(new_times, NIL);
+        for (int slot = 0; slot < slice_times.length; slot++) {
+            if (slice_times[slot] != NIL) {
+                int new_slot = slice_times[slot] & (capacity - 1);
+                new_cell_heads[new_slot] = slice_cell_heads[slot];
+                new_times[new_slot] = slice_times[slot];
+            }
+        }
+        slice_cell_heads = new_cell_heads;
+        slice_times = new_times;
+    }
+
+    private void recycleSlice(int slot) {
+        int[] cell_heads = slice_cell_heads[slot];
+        for (int cell = 0; cell < cell_heads.length; cell++) {
+            int entry = cell_heads[cell];
+            while (entry != NIL) {
+                int next = entry_nexts[entry];
+                entry_nexts[entry] = free_entry;
+                free_entry = entry;
+                live_entry_num--;
+                entry = next;
+            }
+        }
+        slice_times[slot] = NIL;
+    }
+
+    private int newEntry() {
+        if (free_entry != NIL) {
+            int entry = free_entry;
+            free_entry = entry_nexts[entry];
+            return entry;
+        }
+        if (entry_num == entry_xs.length) {
+            int capacity = entry_num * 2;
+            entry_xs = Arrays.copyOf(entry_xs, capacity);
+            entry_ys = Arrays.copyOf(entry_ys, capacity);
+            entry_uavs = Arrays.copyOf(entry_uavs, capacity);
+            entry_generations = Arrays.copyOf(entry_generations, capacity);
+            entry_nexts = Arrays.copyOf(entry_nexts, capacity);
+        }
+        return entry_num++;
+    }
+
+    private int colOf(float coordinate_x) {
+        return Math.max(0, Math.min(col_num - 1, (int) (coordinate_x / cell_size)));
+    }
+
+    private int rowOf(float coordinate_y) {
+        return Math.max(0, Math.min(row_num - 1, (int) (coordinate_y / cell_size)));
+    }
+}
@@ -40,10 +40,13 @@ public class VectorUtil {
      * @return the result from 0 to 2PI
      */
     public static double getAngleOfVectorRelativeToXCoordinate(double coordinate_x, double coordinate_y) {
-        float length_from_origin = (float) Math.sqrt(Math.pow(coordinate_x, 2) + Math.pow(coordinate_y, 2));
-        double angle = Math.acos(coordinate_x / length_from_origin);
-        if (coordinate_y < 0) {
-            angle = (2 * Math.PI - angle);
+        if (coordinate_x == 0 && coordinate_y == 0) {
+            //the zero vector has no angle
+            return Double.NaN;
+        }
+        double angle = Math.atan2(coordinate_y, coordinate_x);
+        if (angle < 0) {
+            angle += 2 * Math.PI;
         }
         return angle;
     }
@@ -56,21 +59,21 @@ public class VectorUtil {
      */
     public static double getAngleOfTwoVector(float[] coordinate_vector_1, float[] coordinate_vector_2) {
         float vector_1_times_vector_2 = coordinate_vector_1[0] * coordinate_vector_2[0] + coordinate_vector_1[1] * coordinate_vector_2[1];
-        float length_of_vector_1 = (float) Math.sqrt(Math.pow(coordinate_vector_1[0], 2) + Math.pow(coordinate_vector_1[1], 2));
-        float length_of_vector_2 = (float) Math.sqrt(Math.pow(coordinate_vector_2[0], 2) + Math.pow(coordinate_vector_2[1], 2));
+        float length_of_vector_1 = (float) Math.sqrt(coordinate_vector_1[0] * coordinate_vector_1[0] + coordinate_vector_1[1] * coordinate_vector_1[1]);
+        float length_of_vector_2 = (float) Math.sqrt(coordinate_vector_2[0] * coordinate_vector_2[0] + coordinate_vector_2[1] * coordinate_vector_2[1]);
         float angle = (float) Math.acos(vector_1_times_vector_2 / (length_of_vector_1 * length_of_vector_2));
         return angle;
     }
 
-    /** This function translate any angle to normal angle, which is in [0, 2PI].
+    /** This function translate any angle to normal angle, which is in (0, 2PI].
      *
      * @param angle
      * @return the result from 0 to 2PI
      */
     public static double getNormalAngle(double angle) {
-        angle += Math.PI * 4;
-        while (angle > Math.PI * 2) {
-            angle -= Math.PI * 2;
+        angle -= Math.PI * 2 * Math.floor(angle / (Math.PI * 2));
+        if (angle <= 0) {
+            angle += Math.PI * 2;
         }
         return angle;
     }
@@ -199,7 +199,8 @@ public class ControlCenter implements KnowledgeAwareInterface {
                     continue;
                 }
 
-                float dist_between_uav_and_role = DistanceUtil.distanceBetween(current_attacker.getCenter_coordinates(), threat.getCoordinates());
+                //the attackers are only ordered by the distances, so the squares are kept
+                float dist_between_uav_and_role = DistanceUtil.distanceSquare(current_attacker.getCenter_coordinates(), threat.getCoordinates());
                 int index_to_insert = 0;
                 boolean attacker_added = false;
                 for (float attacker_dist : attacker_dist_to_assign) {
@@ -36,14 +36,22 @@ import config.NonStaticInitConfig;
 import config.StaticInitConfig;
 import java.awt.Rectangle;
 import java.util.ArrayList;
+import java.util.concurrent.RecursiveAction;
 import ui.RightControlPanel;
 import util.BoundUtil;
 import util.ConflictCheckUtil;
+import util.ParallelUtil;
+import util.PolygonUtil;
 import world.uav.Attacker;
 import world.uav.UAVBase;
 import util.DistanceUtil;
+import util.ObstacleIndex;
+import util.PointGrid;
+import util.ReservationTable;
 import world.model.Conflict;
+import world.model.IndexedKnowledge;
 import world.model.OntologyBasedKnowledge;
+import world.model.SharedWorldModel;
 import world.model.Target;
 import world.model.shape.Point;
 import world.uav.UAVPath;
@@ -81,6 +89,11 @@ public class World {
     public static ArrayList<Attacker> attackers;
     private ArrayList<Scout> scouts;
     public static ControlCenter control_center;
+    /**
+     * the obstacles and threats when the world is built, which are shared by the knowledge of attackers.
+     *
+     */
+    public static SharedWorldModel shared_world_model;
 
     private int total_path_len = 0;
     private int total_msg_num = 0;
@@ -92,6 +105,20 @@ public class World {
     private ArrayList<Conflict> conflicts;
     private ArrayList<Threat> threats;
     private ArrayList<Obstacle> obstacles;
+    private ObstacleIndex obstacle_index;
+    private ReservationTable reservation_table;
+    /**
+     * grid of the attackers which may conflict, rebuilt in each time step, and the attacker index of each point in the grid.
+     *
+     */
+    private PointGrid conflict_grid;
+    private int[] conflict_grid_attackers;
+    private int[] conflict_grid_buffer;
+    /**
+     * the mbr of threat moved by planPathForThreat, which is reused for every step.
+     *
+     */
+    private Rectangle threat_mbr_buffer = new Rectangle();
 
     private int time_step = 0; //times of simulation
 
@@ -115,8 +142,13 @@ public class World {
     public World(NonStaticInitConfig init_config) {
 //        World.kb = new WorldKnowledge();//OntologyBasedKnowledge();WorldKnowledge
         this.conflicts = new ArrayList<Conflict>();
-        this.control_center = new ControlCenter(new OntologyBasedKnowledge());
+        if (StaticInitConfig.use_indexed_knowledge) {
+            this.control_center = new ControlCenter(new IndexedKnowledge());
+        } else {
+            this.control_center = new ControlCenter(new OntologyBasedKnowledge());
+        }
         initParameterFromInitConfig(init_config);
+        World.shared_world_model = new SharedWorldModel(this.obstacles, this.threats);
         this.num_of_threat_remained = this.threat_num;
         this.num_of_attacker_remained = this.attacker_num;
         initUAVs();
@@ -201,17 +233,86 @@ public class World {
      *
      */
     private void planPathForAllAttacker() {
+        if (StaticInitConfig.use_reservation_table) {
+            shareReservationTable();
+        }
+        if (!StaticInitConfig.parallel_planning_for_attackers) {
+            for (Attacker attacker : this.attackers) {
+                if (attacker.isVisible()) {
+                    attacker.pathPlan();
+                }
+            }
+            return;
+        }
+        //the knowledge is read serially, the searches run concurrently, and the paths are committed in the order of attackers
+        ArrayList<AttackerPlanningTask> planning_tasks = new ArrayList<AttackerPlanningTask>();
+        for (Attacker attacker : this.attackers) {
+            if (attacker.isVisible() && attacker.preparePathPlan()) {
+                planning_tasks.add(new AttackerPlanningTask(attacker));
+            }
+        }
+        ParallelUtil.invokeAll(planning_tasks);
+        for (Attacker attacker : this.attackers) {
+            if (attacker.isVisible()) {
+                attacker.commitPathPlan();
+            }
+        }
+    }
+
+    /** drop the past reservations and share the reservation table with the attackers, which is created at the first time.
+     * 
+     */
+    private void shareReservationTable() {
+        if (this.reservation_table == null) {
+            this.reservation_table = new ReservationTable(bound_width, bound_height, Math.max(StaticInitConfig.reservation_cell_size, StaticInitConfig.SAFE_DISTANCE_FOR_CONFLICT));
+        }
+        this.reservation_table.advanceTo(this.time_step);
         for (Attacker attacker : this.attackers) {
             if (attacker.isVisible()) {
-                attacker.pathPlan();
+                attacker.setReservation_table(this.reservation_table, this.time_step);
             }
         }
     }
 
+    /** search path for one attacker in the fork-join pool.
+     * 
+     */
+    private static class AttackerPlanningTask extends RecursiveAction {
+
+        private Attacker attacker;
+
+        public AttackerPlanningTask(Attacker attacker) {
+            this.attacker = attacker;
+        }
+
+        @Override
+        protected void compute() {
+            attacker.searchPath();
+        }
+    }
+
     /**check whether the uav is too close to others and cause conflict. If too close, then the uav should replan.
      * 
      */
     private void checkConflict() {
+        float safe_distance = StaticInitConfig.SAFE_DISTANCE_FOR_CONFLICT;
+        if (this.conflict_grid == null) {
+            this.conflict_grid = new PointGrid(bound_width, bound_height, safe_distance * StaticInitConfig.conflict_grid_cell_multiple);
+            this.conflict_grid_attackers = new int[this.attacker_num];
+            this.conflict_grid_buffer = new int[this.attacker_num];
+        }
+        //only the visible attackers out of the uav base can be conflicted with
+        this.conflict_grid.clear();
+        for (int j = 0; j < this.attacker_num; j++) {
+            Attacker attacker2 = World.attackers.get(j);
+            if (attacker2.getTarget_indicated_by_role() == null || attacker2.isVisible() == false) {
+                continue;
+            }
+            float[] attacker2_coord = attacker2.getCenter_coordinates();
+            int point = this.conflict_grid.add(attacker2_coord[0], attacker2_coord[1]);
+            this.conflict_grid_attackers[point] = j;
+        }
+        this.conflict_grid.build();
         for (int i = 0; i < this.attacker_num; i++) {
             Attacker attacker1 = World.attackers.get(i);
             if (attacker1.getTarget_indicated_by_role() == null)//check whether the attacker is in the uav base. If it is in the uav base, then it will not conflict with others.
@@ -219,13 +320,9 @@ public class World {
                 continue;
             }
             float[] attacker1_coord = attacker1.getCenter_coordinates();
-            for (int j = i + 1; j < this.attacker_num; j++) {
-                Attacker attacker2 = World.attackers.get(j);
-                if (attacker2.getTarget_indicated_by_role() == null || attacker2.isVisible() == false) {
-                    continue;
-                }
-                float[] attacker2_coord = attacker2.getCenter_coordinates();
-                if (DistanceUtil.distanceBetween(attacker1_coord, attacker2_coord) < StaticInitConfig.SAFE_DISTANCE_FOR_CONFLICT) {
+            int found = this.conflict_grid.withinRange(attacker1_coord[0], attacker1_coord[1], safe_distance, this.conflict_grid_buffer);
+            for (int k = 0; k < found; k++) {
+                if (this.conflict_grid_attackers[this.conflict_grid_buffer[k]] > i) {
                     conflict_times++;
                     attacker1.setNeed_to_replan(true);
                     logger.debug("conflict:" + conflict_times);
@@ -255,7 +352,7 @@ public class World {
                 float[] target_coord = attacker_target.getCoordinates();
                 float[] attacker_coord = attacker.getCenter_coordinates();
                 //if the attacker reached the base
-                if (DistanceUtil.distanceBetween(attacker_coord, target_coord) < (attacker.getUav_radar().getRadius() / 3)) {
+                if (DistanceUtil.closerThan(attacker_coord, target_coord, attacker.getUav_radar().getRadius() / 3)) {
                     attacker.setTarget_indicated_by_role(null);
                     attacker.setNeed_to_replan(false);
                     this.control_center.setNeed_to_assign_role(true);
@@ -277,8 +374,7 @@ public class World {
                 }
                 //Otherwise, destroy its threat when the attacker is close to the threat
                 if (threat_index == threat.getIndex()) {
-                    float distance_to_target = DistanceUtil.distanceBetween(attacker.getCenter_coordinates(), threat.getCoordinates());
-                    if (distance_to_target < attacker.getUav_radar().getRadius() / 2) {
+                    if (DistanceUtil.closerThan(attacker.getCenter_coordinates(), threat.getCoordinates(), attacker.getUav_radar().getRadius() / 2)) {
                         if (attacker.getFly_mode() == Attacker.FLYING_MODE) {
                             attacker.setFly_mode(Attacker.TARGET_LOCKED_MODE);
                             attacker.setHovered_time_step(0);
@@ -373,8 +469,7 @@ public class World {
             int threat_list_size = threats.size();
             for (int i = 0; i < threat_list_size; i++) {
                 Threat threat = threats.get(i);
-                float dist_from_attacker_to_threat = DistanceUtil.distanceBetween(attacker.getCenter_coordinates(), threat.getCoordinates());
-                if (dist_from_attacker_to_threat < attacker.getUav_radar().getRadius() && threat.isEnabled()) {
+                if (threat.isEnabled() && DistanceUtil.closerThan(attacker.getCenter_coordinates(), threat.getCoordinates(), attacker.getUav_radar().getRadius())) {
                     if (!attacker.containsThreat(threat)) {
                         attacker.addThreat(threat);
                         attacker.setNeed_to_replan(true);
@@ -405,8 +500,7 @@ public class World {
             int threat_list_size = this.getThreatsForUIRendering().size();
             for (int i = 0; i < threat_list_size; i++) {
                 Threat threat = this.getThreatsForUIRendering().get(i);
-                float dist_from_attacker_to_threat = DistanceUtil.distanceBetween(scout.getCenter_coordinates(), threat.getCoordinates());
-                if (threat.isEnabled() && !control_center.containsThreat(threat) && dist_from_attacker_to_threat < scout.getUav_radar().getRadius() * 0.9) {
+                if (threat.isEnabled() && !control_center.containsThreat(threat) && DistanceUtil.closerThan(scout.getCenter_coordinates(), threat.getCoordinates(), scout.getUav_radar().getRadius() * 0.9f)) {
                     control_center.addThreat(threat);
                 }
             }
@@ -453,11 +547,20 @@ public class World {
     private void updateConflict() {
         for (int i = 0; i < this.attacker_num; i++) {
             Attacker attacker = World.attackers.get(i);
+            if (this.reservation_table != null && StaticInitConfig.use_reservation_table) {
+                //the waypoint k of future path is reached at the time step this.time_step + 1 + k
+                if (!attacker.isVisible()) {
+                    this.reservation_table.release(attacker.getIndex());
+                } else if (attacker.isReplanned_at_current_time_step()) {
+                    this.reservation_table.reserve(attacker.getIndex(), attacker.getFuturePath(), this.time_step + 1);
+                }
+                continue;
+            }
             if (!attacker.isVisible()) {
                 continue;
             }
             if (attacker.isReplanned_at_current_time_step()) {
-                Conflict conflict = new Conflict(attacker.getIndex(), attacker.getFuturePath().getWaypointsAsLinkedList(), this.time_step, StaticInitConfig.SAFE_DISTANCE_FOR_CONFLICT);
+                Conflict conflict = new Conflict(attacker.getIndex(), attacker.getFuturePath(), this.time_step, StaticInitConfig.SAFE_DISTANCE_FOR_CONFLICT);
                 this.addConflict(conflict);
             }
         }
@@ -502,9 +605,10 @@ public class World {
         while (true) {
             coord_x += speed * (float) Math.cos(threat_angle);
             coord_y += speed * (float) Math.sin(threat_angle);
-            Rectangle threat_mbr = new Rectangle((int) coord_x - (Threat.threat_width + NonStaticInitConfig.threat_range_from_obstacles) / 2, (int) coord_y - (Threat.threat_height + NonStaticInitConfig.threat_range_from_obstacles) / 2, Threat.threat_width + NonStaticInitConfig.threat_range_from_obstacles, Threat.threat_height + NonStaticInitConfig.threat_range_from_obstacles);
-            point_conflicted_with_obstacles = ConflictCheckUtil.checkThreatInObstacles(obstacles, threat_mbr)||World.uav_base.getBase_shape().intersects(threat_mbr);
-            if (point_conflicted_with_obstacles || !BoundUtil.withinRelaxedBound(coord_x, coord_y, bound_width, bound_height) || DistanceUtil.distanceBetween(threat.getCoordinates(), new float[]{coord_x, coord_y}) > StaticInitConfig.maximum_threat_movement_length) {
+            Rectangle threat_mbr = this.threat_mbr_buffer;
+            threat_mbr.setBounds((int) coord_x - (Threat.threat_width + NonStaticInitConfig.threat_range_from_obstacles) / 2, (int) coord_y - (Threat.threat_height + NonStaticInitConfig.threat_range_from_obstacles) / 2, Threat.threat_width + NonStaticInitConfig.threat_range_from_obstacles, Threat.threat_height + NonStaticInitConfig.threat_range_from_obstacles);
+            point_conflicted_with_obstacles = ConflictCheckUtil.checkThreatInObstacles(this.getObstacleIndex(), threat_mbr)||World.uav_base.getBase_shape().intersects(threat_mbr);
+            if (point_conflicted_with_obstacles || !BoundUtil.withinRelaxedBound(coord_x, coord_y, bound_width, bound_height) || DistanceUtil.distanceSquare(threat.getCoordinates()[0], threat.getCoordinates()[1], coord_x, coord_y) > StaticInitConfig.maximum_threat_movement_length * StaticInitConfig.maximum_threat_movement_length) {
                 coord_x -= speed * (float) Math.cos(threat_angle);
                 coord_y -= speed * (float) Math.sin(threat_angle);
                 threat_angle += Math.PI / 2;
@@ -602,7 +706,7 @@ public class World {
             }
             float[] coordinate = attacker.getCenter_coordinates();
             for (Obstacle obstacle : this.getObstaclesForUIRendering()) {
-                if (obstacle.getMbr().contains(coordinate[0], coordinate[1])) {
+                if (obstacle.getMbr().contains(coordinate[0], coordinate[1]) && (!StaticInitConfig.exact_obstacle_collision || PolygonUtil.containsPoint(obstacle.getVertex_xs(), obstacle.getVertex_ys(), coordinate[0], coordinate[1]))) {
                     attacker.setVisible(false);
                     this.num_of_attacker_remained--;
                     Target target = attacker.getTarget_indicated_by_role();
@@ -623,7 +727,9 @@ public class World {
         for (Threat threat_in_control_center : threats_in_control_center) {
             for (Threat threat : this.threats) {
                 if (threat_in_control_center.getIndex() == threat.getIndex()) {
-                    threat_in_control_center.setCoordinates(threat.getCoordinates());
+                    //copy the coordinates, since the threat moves them in place
+                    float[] coordinates = threat.getCoordinates();
+                    threat_in_control_center.setCoordinates(new float[]{coordinates[0], coordinates[1]});
                     this.control_center.updateThreat(threat);
                 }
             }
@@ -780,6 +886,18 @@ public class World {
 
     private void setObstacles(ArrayList<Obstacle> obstacles) {
         this.obstacles = obstacles;
+        this.obstacle_index = null;
+    }
+
+    /** get the index of obstacles, which is built again after the obstacles change.
+     * 
+     * @return 
+     */
+    private ObstacleIndex getObstacleIndex() {
+        if (this.obstacle_index == null) {
+            this.obstacle_index = new ObstacleIndex(this.obstacles);
+        }
+        return this.obstacle_index;
     }
 
     private void setConflicts(ArrayList<Conflict> conflicts) {
@@ -792,6 +910,7 @@ public class World {
 
     private void addObstacle(Obstacle obs) {
         this.obstacles.add(obs);
+        this.obstacle_index = null;
     }
 
     private void addConflict(Conflict conflict) {
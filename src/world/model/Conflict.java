@@ -37,6 +37,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import world.Message;
 import world.model.shape.Point;
+import world.uav.UAVPath;
 
 /**
  *
@@ -47,6 +48,12 @@ public class Conflict extends Message implements Serializable {
     private int uav_index;
     private float conflict_range;
     private LinkedList<Point> path_prefound; //waypoints have been generated
+    /**
+     * the waypoints as a path, which is shared with the path planned by the uav when the conflict is published.
+     * The list of waypoints is only built from it when it is asked for, and the path is built from the list in the same way.
+     *
+     */
+    private UAVPath path_snapshot;
     private int decision_time_step;
 
     public Conflict(int uav_index, LinkedList<Point> path_prefound, int decision_time_step, float conflict_range) {
@@ -57,7 +64,23 @@ public class Conflict extends Message implements Serializable {
         this.conflict_range = conflict_range;
     }
 
+    /** create the conflict from the snapshot of future path, the waypoints are not copied.
+     * 
+     * @param uav_index
+     * @param path_snapshot
+     * @param decision_time_step
+     * @param conflict_range 
+     */
+    public Conflict(int uav_index, UAVPath path_snapshot, int decision_time_step, float conflict_range) {
+        this.uav_index = uav_index;
+        this.path_snapshot = path_snapshot;
+        this.decision_time_step = decision_time_step;
+        this.msg_type = Message.CONFLICT_MSG;
+        this.conflict_range = conflict_range;
+    }
+
     public void sort() {
+        LinkedList<Point> path_prefound = this.getPath_prefound();
         int path_len = path_prefound.size();
         for (int i = 0; i < path_len; i++) {
             Point point1 = path_prefound.get(i);
@@ -69,6 +92,7 @@ public class Conflict extends Message implements Serializable {
                 }
             }
         }
+        this.path_snapshot = null;
     }
 
     public int getUav_index() {
@@ -80,11 +104,28 @@ public class Conflict extends Message implements Serializable {
     }
 
     public LinkedList<Point> getPath_prefound() {
+        if (path_prefound == null && path_snapshot != null) {
+            path_prefound = path_snapshot.getWaypointsAsLinkedList();
+        }
         return path_prefound;
     }
 
     public void setPath_prefound(LinkedList<Point> path_prefound) {
         this.path_prefound = path_prefound;
+        this.path_snapshot = null;
+    }
+
+    /** get the waypoints as a path, which is read by index without copying.
+     * 
+     * @return null if there are no waypoints
+     */
+    public UAVPath getPath_snapshot() {
+        if (path_snapshot == null && path_prefound != null) {
+            UAVPath path = new UAVPath();
+            path.setWaypoints(path_prefound);
+            path_snapshot = path;
+        }
+        return path_snapshot;
     }
 
     public int getDecision_time_step() {
@@ -110,7 +151,7 @@ public class Conflict extends Message implements Serializable {
 
     @Override
     public int getMsgSize() {
-        return this.path_prefound.size();
+        return this.getPath_snapshot().getWaypointNum();
     }
     
         @Override
@@ -0,0 +1,358 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package world.model;
+
+import config.StaticInitConfig;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/** This is the knowledge kept in typed maps in memory, obstacles and threats are indexed by their index and conflicts by the index of uav.
+ * It can replace OntologyBasedKnowledge in attackers and control center, the knowledge is read without any query or parsing.
+ * Like OntologyBasedKnowledge, the threats are stored as snapshots taken when they are added.
+ *
+ * If export_knowledge_to_ontology is set, each change is also applied to an OntologyBasedKnowledge in a background thread,
+ * so that the knowledge can still be inspected in the ontology.
+ *
+ * @author Yulin_Zhang
+ */
+public class IndexedKnowledge extends KnowledgeInterface {
+
+    private static org.apache.log4j.Logger logger = org.apache.log4j.Logger.getLogger(IndexedKnowledge.class);
+
+    private LinkedHashMap<Integer, Obstacle> obstacle_map = new LinkedHashMap<Integer, Obstacle>();
+    private LinkedHashMap<Integer, Threat> threat_map = new LinkedHashMap<Integer, Threat>();
+    private LinkedHashMap<Integer, Conflict> conflict_map = new LinkedHashMap<Integer, Conflict>();
+
+    /**
+     * lists returned by the getters, they are rebuilt only after the maps are changed.
+     *
+     */
+    private ArrayList<Obstacle> obstacles_cache;
+    private ArrayList<Threat> threats_cache;
+    private ArrayList<Conflict> conflicts_cache;
+
+    /**
+     * the ontology the changes are exported to, it is only accessed in the export thread.
+     *
+     */
+    private OntologyBasedKnowledge exported_knowledge;
+    private final boolean export_to_ontology;
+
+    private static ExecutorService export_executor;
+
+    public IndexedKnowledge() {
+        this(StaticInitConfig.export_knowledge_to_ontology);
+    }
+
+    public IndexedKnowledge(boolean export_to_ontology) {
+        super();
+        this.export_to_ontology = export_to_ontology;
+    }
+
+    @Override
+    public ArrayList<Obstacle> getObstacles() {
+        if (obstacles_cache == null) {
+            obstacles_cache = new ArrayList<Obstacle>(obstacle_map.values());
+        }
+        return obstacles_cache;
+    }
+
+    @Override
+    public ArrayList<Threat> getThreats() {
+        if (threats_cache == null) {
+            threats_cache = new ArrayList<Threat>(threat_map.values());
+        }
+        return threats_cache;
+    }
+
+    @Override
+    public ArrayList<Conflict> getConflicts() {
+        if (conflicts_cache == null) {
+            conflicts_cache = new ArrayList<Conflict>(conflict_map.values());
+        }
+        return conflicts_cache;
+    }
+
+    @Override
+    public void setObstacles(ArrayList<Obstacle> obstacles) {
+        obstacle_map.clear();
+        if (obstacles != null) {
+            for (Obstacle obstacle : obstacles) {
+                obstacle_map.put(obstacle.getIndex(), obstacle);
+            }
+        }
+        obstacleChanged();
+        final ArrayList<Obstacle> obstacles_to_export = getObstacles();
+        export(new Runnable() {
+
+            @Override
+            public void run() {
+                exported_knowledge.setObstacles(obstacles_to_export);
+            }
+        });
+    }
+
+    @Override
+    public void setThreats(ArrayList<Threat> threats) {
+        threat_map.clear();
+        if (threats != null) {
+            for (Threat threat : threats) {
+                Threat threat_snapshot = snapshotOf(threat);
+                threat_map.put(threat_snapshot.getIndex(), threat_snapshot);
+            }
+        }
+        threatChanged();
+        final ArrayList<Threat> threats_to_export = getThreats();
+        export(new Runnable() {
+
+            @Override
+            public void run() {
+                exported_knowledge.setThreats(threats_to_export);
+            }
+        });
+    }
+
+    @Override
+    public void setConflicts(ArrayList<Conflict> conflicts) {
+        conflict_map.clear();
+        if (conflicts != null) {
+            for (Conflict conflict : conflicts) {
+                conflict_map.put(conflict.getUav_index(), conflict);
+            }
+        }
+        conflictChanged();
+        final ArrayList<Conflict> conflicts_to_export = getConflicts();
+        export(new Runnable() {
+
+            @Override
+            public void run() {
+                exported_knowledge.setConflicts(conflicts_to_export);
+            }
+        });
+    }
+
+    @Override
+    public void addObstacle(final Obstacle obstacle) {
+        obstacle_map.put(obstacle.getIndex(), obstacle);
+        obstacleChanged();
+        export(new Runnable() {
+
+            @Override
+            public void run() {
+                exported_knowledge.addObstacle(obstacle);
+            }
+        });
+    }
+
+    /** add the threat, the threat with the same index is replaced.
+     *
+     * @param threat
+     */
+    @Override
+    public void addThreat(Threat threat) {
+        final Threat threat_snapshot = snapshotOf(threat);
+        final Threat old_threat = threat_map.put(threat_snapshot.getIndex(), threat_snapshot);
+        threatChanged();
+        export(new Runnable() {
+
+            @Override
+            public void run() {
+                if (old_threat != null) {
+                    exported_knowledge.removeThreat(old_threat);
+                }
+                exported_knowledge.addThreat(threat_snapshot);
+            }
+        });
+    }
+
+    /** add the conflict, the conflict from the same uav is replaced.
+     *
+     * @param conflict
+     */
+    @Override
+    public void addConflict(final Conflict conflict) {
+        conflict_map.put(conflict.getUav_index(), conflict);
+        conflictChanged();
+        export(new Runnable() {
+
+            @Override
+            public void run() {
+                exported_knowledge.addConflict(conflict);
+            }
+        });
+    }
+
+    @Override
+    public boolean containsObstacle(Obstacle obstacle) {
+        return sameObstacleShape(obstacle_map.get(obstacle.getIndex()), obstacle);
+    }
+
+    @Override
+    public boolean containsThreat(Threat threat) {
+        return sameThreatCenter(threat_map.get(threat.getIndex()), threat);
+    }
+
+    @Override
+    public boolean containsConflict(Conflict conflict) {
+        return conflict_map.get(conflict.getUav_index()) == conflict;
+    }
+
+    @Override
+    public boolean removeObstacle(final Obstacle obstacle) {
+        if (obstacle_map.remove(obstacle.getIndex()) == null) {
+            return false;
+        }
+        obstacleChanged();
+        export(new Runnable() {
+
+            @Override
+            public void run() {
+                exported_knowledge.removeObstacle(obstacle);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean removeThreat(final Threat threat) {
+        if (threat_map.remove(threat.getIndex()) == null) {
+            return false;
+        }
+        threatChanged();
+        export(new Runnable() {
+
+            @Override
+            public void run() {
+                exported_knowledge.removeThreat(threat);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean removeConflict(Conflict conflict) {
+        if (!containsConflict(conflict)) {
+            return false;
+        }
+        conflict_map.remove(conflict.getUav_index());
+        conflictChanged();
+        final ArrayList<Conflict> conflicts_to_export = getConflicts();
+        export(new Runnable() {
+
+            @Override
+            public void run() {
+                exported_knowledge.setConflicts(conflicts_to_export);
+            }
+        });
+        return true;
+    }
+
+    /** wait until the changes made so far are exported.
+     *
+     * @return the ontology holding the exported knowledge, null if the knowledge is not exported.
+     */
+    public OntologyBasedKnowledge getExported_knowledge() {
+        if (!export_to_ontology) {
+            return null;
+        }
+        try {
+            getExport_executor().submit(new Runnable() {
+
+                @Override
+                public void run() {
+                    ensureExported_knowledge();
+                }
+            }).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            logger.error(ex);
+        }
+        return exported_knowledge;
+    }
+
+    private void obstacleChanged() {
+        obstacles_cache = null;
+        obstacle_num = obstacle_map.size();
+    }
+
+    private void threatChanged() {
+        threats_cache = null;
+        threat_num = threat_map.size();
+    }
+
+    private void conflictChanged() {
+        conflicts_cache = null;
+        conflict_num = conflict_map.size();
+    }
+
+    private void export(final Runnable change) {
+        if (!export_to_ontology) {
+            return;
+        }
+        getExport_executor().execute(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    ensureExported_knowledge();
+                    change.run();
+                } catch (RuntimeException ex) {
+                    logger.error(ex);
+                }
+            }
+        });
+    }
+
+    private void ensureExported_knowledge() {
+        if (exported_knowledge == null) {
+            exported_knowledge = new OntologyBasedKnowledge();
+        }
+    }
+
+    /** get the single thread shared by all the knowledge to export their changes, so that the changes are applied in order.
+     *
+     * @return
+     */
+    private static synchronized ExecutorService getExport_executor() {
+        if (export_executor == null) {
+            export_executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "knowledge-export");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return export_executor;
+    }
+}
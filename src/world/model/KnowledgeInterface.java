@@ -31,6 +31,7 @@ import javax.swing.event.TreeModelEvent;
 import javax.swing.event.TreeModelListener;
 import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
+import util.ObstacleIndex;
 
 /**
  *
@@ -48,6 +49,11 @@ public abstract class KnowledgeInterface implements TreeModel {
     protected int conflict_num;
 
     protected ArrayList<String> root_child;
+    /**
+     * the index of the obstacles known, which is shared by the planners until the obstacles change.
+     *
+     */
+    private ObstacleIndex obstacle_index;
     protected final ArrayList<TreeModelListener> treeModelListeners = new ArrayList<TreeModelListener>();
 
     public KnowledgeInterface() {
@@ -159,6 +165,62 @@ public abstract class KnowledgeInterface implements TreeModel {
         return null;
     }
 
+    /** get the index of the obstacles known, which is built again only when the obstacles have changed since it was built.
+     *
+     * @return
+     */
+    public ObstacleIndex getObstacleIndex() {
+        ArrayList<Obstacle> obstacles = this.getObstacles();
+        if (obstacle_index == null || !obstacle_index.indexes(obstacles)) {
+            obstacle_index = new ObstacleIndex(obstacles);
+        }
+        return obstacle_index;
+    }
+
+    /** copy the fields of threat kept in the knowledge, so that the knowledge is not changed when the threat moves.
+     *
+     * @param threat
+     * @return
+     */
+    protected static Threat snapshotOf(Threat threat) {
+        float[] coordinates = threat.getCoordinates();
+        float[] center_coord = new float[]{coordinates[0], coordinates[1]};
+        Threat threat_snapshot = new Threat(threat.getIndex(), center_coord, threat.getTarget_type(), threat.getSpeed());
+        threat_snapshot.setThreat_cap(threat.getThreat_cap());
+        threat_snapshot.setThreat_range(threat.getThreat_range());
+        threat_snapshot.setEnabled(threat.isEnabled());
+        return threat_snapshot;
+    }
+
+    /** check whether the threat known with the same index is at the center of the given threat.
+     * A threat which has moved since it was known is not contained, so that it is added again with its new center.
+     *
+     * @param known_threat the threat with the same index in the knowledge, null if there is not
+     * @param threat
+     * @return
+     */
+    protected static boolean sameThreatCenter(Threat known_threat, Threat threat) {
+        if (known_threat == null) {
+            return false;
+        }
+        float[] known_center = known_threat.getCoordinates();
+        float[] center = threat.getCoordinates();
+        return known_center[0] == center[0] && known_center[1] == center[1];
+    }
+
+    /** check whether the obstacle known with the same index has the shape of the given obstacle.
+     *
+     * @param known_obstacle the obstacle with the same index in the knowledge, null if there is not
+     * @param obstacle
+     * @return
+     */
+    protected static boolean sameObstacleShape(Obstacle known_obstacle, Obstacle obstacle) {
+        if (known_obstacle == null) {
+            return false;
+        }
+        return known_obstacle == obstacle || known_obstacle.getPointsStr().equals(obstacle.getPointsStr());
+    }
+
     public abstract boolean removeObstacle(Obstacle obstacle);
 
     public abstract boolean removeThreat(Threat threat);
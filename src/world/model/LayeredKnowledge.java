@@ -0,0 +1,304 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package world.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+
+/** This is the knowledge of an attacker layered on the world model shared by all attackers.
+ * The obstacles and threats found in the shared model are only recorded by their bits of discovery,
+ * the ones not in the model or changed since the model was built (e.g. a threat moved or destroyed) are kept as private overrides.
+ * The conflicts are always private.
+ *
+ * @author Yulin_Zhang
+ */
+public class LayeredKnowledge extends KnowledgeInterface {
+
+    private final SharedWorldModel world_model;
+    private final BitSet discovered_obstacles = new BitSet();
+    private final BitSet discovered_threats = new BitSet();
+    /**
+     * private overrides indexed by their index, they are created at the first override.
+     *
+     */
+    private LinkedHashMap<Integer, Obstacle> private_obstacles;
+    private LinkedHashMap<Integer, Threat> private_threats;
+    private LinkedHashMap<Integer, Conflict> conflict_map = new LinkedHashMap<Integer, Conflict>();
+
+    /**
+     * lists returned by the getters, they are rebuilt only after the knowledge is changed.
+     *
+     */
+    private ArrayList<Obstacle> obstacles_cache;
+    private ArrayList<Threat> threats_cache;
+    private ArrayList<Conflict> conflicts_cache;
+
+    public LayeredKnowledge(SharedWorldModel world_model) {
+        super();
+        this.world_model = world_model;
+    }
+
+    @Override
+    public ArrayList<Obstacle> getObstacles() {
+        if (obstacles_cache == null) {
+            ArrayList<Obstacle> obstacles = new ArrayList<Obstacle>(obstacle_num);
+            for (int slot = discovered_obstacles.nextSetBit(0); slot >= 0; slot = discovered_obstacles.nextSetBit(slot + 1)) {
+                obstacles.add(world_model.getObstacle(slot));
+            }
+            if (private_obstacles != null) {
+                obstacles.addAll(private_obstacles.values());
+            }
+            obstacles_cache = obstacles;
+        }
+        return obstacles_cache;
+    }
+
+    @Override
+    public ArrayList<Threat> getThreats() {
+        if (threats_cache == null) {
+            ArrayList<Threat> threats = new ArrayList<Threat>(threat_num);
+            for (int slot = discovered_threats.nextSetBit(0); slot >= 0; slot = discovered_threats.nextSetBit(slot + 1)) {
+                threats.add(world_model.getThreat(slot));
+            }
+            if (private_threats != null) {
+                threats.addAll(private_threats.values());
+            }
+            threats_cache = threats;
+        }
+        return threats_cache;
+    }
+
+    @Override
+    public ArrayList<Conflict> getConflicts() {
+        if (conflicts_cache == null) {
+            conflicts_cache = new ArrayList<Conflict>(conflict_map.values());
+        }
+        return conflicts_cache;
+    }
+
+    @Override
+    public void setObstacles(ArrayList<Obstacle> obstacles) {
+        discovered_obstacles.clear();
+        private_obstacles = null;
+        if (obstacles != null) {
+            for (Obstacle obstacle : obstacles) {
+                putObstacle(obstacle);
+            }
+        }
+        obstacleChanged();
+    }
+
+    @Override
+    public void setThreats(ArrayList<Threat> threats) {
+        discovered_threats.clear();
+        private_threats = null;
+        if (threats != null) {
+            for (Threat threat : threats) {
+                putThreat(threat);
+            }
+        }
+        threatChanged();
+    }
+
+    @Override
+    public void setConflicts(ArrayList<Conflict> conflicts) {
+        conflict_map.clear();
+        if (conflicts != null) {
+            for (Conflict conflict : conflicts) {
+                conflict_map.put(conflict.getUav_index(), conflict);
+            }
+        }
+        conflictChanged();
+    }
+
+    @Override
+    public void addObstacle(Obstacle obstacle) {
+        putObstacle(obstacle);
+        obstacleChanged();
+    }
+
+    /** add the threat, the threat with the same index is replaced.
+     *
+     * @param threat
+     */
+    @Override
+    public void addThreat(Threat threat) {
+        putThreat(threat);
+        threatChanged();
+    }
+
+    /** add the conflict, the conflict from the same uav is replaced.
+     *
+     * @param conflict
+     */
+    @Override
+    public void addConflict(Conflict conflict) {
+        conflict_map.put(conflict.getUav_index(), conflict);
+        conflictChanged();
+    }
+
+    @Override
+    public boolean containsObstacle(Obstacle obstacle) {
+        return sameObstacleShape(getKnownObstacle(obstacle.getIndex()), obstacle);
+    }
+
+    @Override
+    public boolean containsThreat(Threat threat) {
+        return sameThreatCenter(getKnownThreat(threat.getIndex()), threat);
+    }
+
+    @Override
+    public boolean containsConflict(Conflict conflict) {
+        return conflict_map.get(conflict.getUav_index()) == conflict;
+    }
+
+    @Override
+    public boolean removeObstacle(Obstacle obstacle) {
+        int index = obstacle.getIndex();
+        if (private_obstacles != null && private_obstacles.remove(index) != null) {
+            obstacleChanged();
+            return true;
+        }
+        int slot = world_model.getObstacleSlot(index);
+        if (slot >= 0 && discovered_obstacles.get(slot)) {
+            discovered_obstacles.clear(slot);
+            obstacleChanged();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean removeThreat(Threat threat) {
+        int index = threat.getIndex();
+        if (private_threats != null && private_threats.remove(index) != null) {
+            threatChanged();
+            return true;
+        }
+        int slot = world_model.getThreatSlot(index);
+        if (slot >= 0 && discovered_threats.get(slot)) {
+            discovered_threats.clear(slot);
+            threatChanged();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean removeConflict(Conflict conflict) {
+        if (!containsConflict(conflict)) {
+            return false;
+        }
+        conflict_map.remove(conflict.getUav_index());
+        conflictChanged();
+        return true;
+    }
+
+    /** record the obstacle by its bit if it is the one in the shared model, otherwise keep it as a private override.
+     *
+     * @param obstacle
+     */
+    private void putObstacle(Obstacle obstacle) {
+        int index = obstacle.getIndex();
+        int slot = world_model.getObstacleSlot(index);
+        if (slot >= 0 && sameObstacleShape(world_model.getObstacle(slot), obstacle)) {
+            if (private_obstacles != null) {
+                private_obstacles.remove(index);
+            }
+            discovered_obstacles.set(slot);
+            return;
+        }
+        if (slot >= 0) {
+            discovered_obstacles.clear(slot);
+        }
+        if (private_obstacles == null) {
+            private_obstacles = new LinkedHashMap<Integer, Obstacle>();
+        }
+        private_obstacles.put(index, obstacle);
+    }
+
+    /** record the threat by its bit if it is unchanged since the shared model was built, otherwise keep its snapshot as a private override.
+     *
+     * @param threat
+     */
+    private void putThreat(Threat threat) {
+        int index = threat.getIndex();
+        int slot = world_model.getThreatSlot(index);
+        if (slot >= 0) {
+            Threat shared_threat = world_model.getThreat(slot);
+            if (sameThreatCenter(shared_threat, threat) && shared_threat.isEnabled() == threat.isEnabled()) {
+                if (private_threats != null) {
+                    private_threats.remove(index);
+                }
+                discovered_threats.set(slot);
+                return;
+            }
+            discovered_threats.clear(slot);
+        }
+        if (private_threats == null) {
+            private_threats = new LinkedHashMap<Integer, Threat>();
+        }
+        private_threats.put(index, snapshotOf(threat));
+    }
+
+    private Obstacle getKnownObstacle(int index) {
+        if (private_obstacles != null) {
+            Obstacle obstacle = private_obstacles.get(index);
+            if (obstacle != null) {
+                return obstacle;
+            }
+        }
+        int slot = world_model.getObstacleSlot(index);
+        return slot >= 0 && discovered_obstacles.get(slot) ? world_model.getObstacle(slot) : null;
+    }
+
+    private Threat getKnownThreat(int index) {
+        if (private_threats != null) {
+            Threat threat = private_threats.get(index);
+            if (threat != null) {
+                return threat;
+            }
+        }
+        int slot = world_model.getThreatSlot(index);
+        return slot >= 0 && discovered_threats.get(slot) ? world_model.getThreat(slot) : null;
+    }
+
+    private void obstacleChanged() {
+        obstacles_cache = null;
+        obstacle_num = discovered_obstacles.cardinality() + (private_obstacles == null ? 0 : private_obstacles.size());
+    }
+
+    private void threatChanged() {
+        threats_cache = null;
+        threat_num = discovered_threats.cardinality() + (private_threats == null ? 0 : private_threats.size());
+    }
+
+    private void conflictChanged() {
+        conflicts_cache = null;
+        conflict_num = conflict_map.size();
+    }
+}
@@ -47,12 +47,29 @@ public class Obstacle extends Message implements Serializable {
     private int index;
     private Polygon shape;
     private Rectangle mbr;
+    /**
+     * the vertices of the shape, which are copied once for the exact collision checks.
+     *
+     */
+    private float[] vertex_xs;
+    private float[] vertex_ys;
+    /**
+     * the points of shape in string, which is built at the first call of getPointsStr.
+     *
+     */
+    private String points_str;
 
     public Obstacle(Polygon shape, int index) {
         this.shape = shape;
         this.index = index;
         if (shape != null) {
             this.mbr = shape.getBounds();
+            this.vertex_xs = new float[shape.npoints];
+            this.vertex_ys = new float[shape.npoints];
+            for (int i = 0; i < shape.npoints; i++) {
+                this.vertex_xs[i] = shape.xpoints[i];
+                this.vertex_ys[i] = shape.ypoints[i];
+            }
         }
         this.msg_type = Message.OBSTACLE_MSG;
     }
@@ -73,20 +90,34 @@ public class Obstacle extends Message implements Serializable {
         return mbr;
     }
 
+    public float[] getVertex_xs() {
+        return vertex_xs;
+    }
+
+    public float[] getVertex_ys() {
+        return vertex_ys;
+    }
+
     @Override
     public String toString() {
         return StaticInitConfig.OBSTACLE_NAME + this.index;
     }
 
     public String getPointsStr() {
-        int[] xpoints = shape.xpoints;
-        int[] ypoints = shape.ypoints;
-        int point_num = shape.npoints;
-        String result = "";
-        for (int i = 0; i < point_num; i++) {
-            result += xpoints[i] + "," + ypoints[i] + " ";
+        if (points_str == null) {
+            int[] xpoints = shape.xpoints;
+            int[] ypoints = shape.ypoints;
+            int point_num = shape.npoints;
+            StringBuilder result = new StringBuilder();
+            for (int i = 0; i < point_num; i++) {
+                if (i > 0) {
+                    result.append(' ');
+                }
+                result.append(xpoints[i]).append(',').append(ypoints[i]);
+            }
+            points_str = result.toString();
         }
-        return result.trim();
+        return points_str;
     }
 
     @Override
@@ -119,4 +150,9 @@ public class Obstacle extends Message implements Serializable {
             return false;
         }
     }
+
+    @Override
+    public int hashCode() {
+        return this.mbr == null ? 0 : this.mbr.hashCode();
+    }
 }
@@ -44,8 +44,6 @@ import com.hp.hpl.jena.rdf.model.ModelFactory;
 import com.hp.hpl.jena.rdf.model.Property;
 import com.hp.hpl.jena.rdf.model.RDFNode;
 import com.hp.hpl.jena.rdf.model.Resource;
-import com.hp.hpl.jena.rdf.model.Selector;
-import com.hp.hpl.jena.rdf.model.SimpleSelector;
 import com.hp.hpl.jena.rdf.model.Statement;
 import com.hp.hpl.jena.rdf.model.StmtIterator;
 import com.hp.hpl.jena.util.PrintUtil;
@@ -60,7 +58,6 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 import util.ObtacleUtil;
-import util.StringUtil;
 import world.model.shape.Point;
 
 /**
@@ -73,7 +70,8 @@ public class OntologyBasedKnowledge extends KnowledgeInterface {
     public static String base_ns = "http://www.multiagent.com.cn/robotontology/";
     public static String rdf_ns = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
     private static org.apache.log4j.Logger logger = org.apache.log4j.Logger.getLogger(OntologyBasedKnowledge.class);
-    public String prefix = "PREFIX mars:<http://www.multiagent.com.cn/robotontology/>" + "PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#>";
+    private static final String QUERY_PREFIX = "PREFIX mars:<http://www.multiagent.com.cn/robotontology/>" + "PREFIX rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#>";
+    public String prefix = QUERY_PREFIX;
 
     /**
      * internal variables
@@ -81,22 +79,77 @@ public class OntologyBasedKnowledge extends KnowledgeInterface {
      *
      */
     public OntClass Obstacle_Class, Region_Class, Polygon_Class, LowerBoundOfRegion_Class, UpperBoundOfRegion_Class, Threat_Class;
-    public OntClass Conflict_Class;
+    public OntClass Conflict_Class, Point_Class;
     public DatatypeProperty hasExpectedConflictTime, hasDecidedConflictTime, conflictFromRobot;
-    public ObjectProperty has_region, has_polygon, has_lowerbound, has_upperbound, rdf_type;
-    public DatatypeProperty hasConflictCenter, hasConflictRange;
-    public DatatypeProperty hasThreatCenter, hasThreatSpeed, hasThreatRange, hasThreatCapability, hasThreatIndex, threatEnabled;
+    public ObjectProperty has_region, has_polygon, has_lowerbound, has_upperbound, has_vertex, rdf_type;
+    public DatatypeProperty hasConflictCenterX, hasConflictCenterY, hasConflictRange;
+    public DatatypeProperty hasThreatCenterX, hasThreatCenterY, hasThreatSpeed, hasThreatRange, hasThreatCapability, hasThreatIndex, threatEnabled;
     public DatatypeProperty has_points, hasMaxXCoordinate, hasMaxYCoordinate, hasMinXCoordinate, hasMinYCoordinate, hasObstacleIndex;
+    public DatatypeProperty hasXCoordinate, hasYCoordinate, hasVertexOrder;
 
     public RDFNode null_node = null;
     /**
-     * cache to speed the information retrieve process.
+     * cache to speed the information retrieve process, it is patched in place when the knowledge is changed.
+     * The flags are only set when the model is changed directly, then the cache is reloaded from the model.
+     * A cache returned by the getters may be iterated while the knowledge is changed, so it is copied before it is patched.
      *
      */
     public boolean obstacle_updated = false, threat_updated = false, conflict_updated = false;
     public ArrayList<Obstacle> obstacles_cache = new ArrayList<Obstacle>();
     public ArrayList<Threat> threats_cache = new ArrayList<Threat>();
     public ArrayList<Conflict> conflicts_cache = new ArrayList<Conflict>();
+    private boolean obstacles_cache_shared = false, threats_cache_shared = false, conflicts_cache_shared = false;
+    /**
+     * the cached obstacles and threats indexed by their index, so that the membership is checked in constant time.
+     *
+     */
+    private HashMap<Integer, Obstacle> obstacle_index_map = new HashMap<Integer, Obstacle>();
+    private HashMap<Integer, Threat> threat_index_map = new HashMap<Integer, Threat>();
+    /**
+     * writes to the model which are delayed until the model is read.
+     *
+     */
+    private LinkedList<Runnable> pending_writes = new LinkedList<Runnable>();
+
+    /**
+     * the queries are parsed once and executed on the model of each knowledge.
+     * The coordinates are stored in typed literals, so that the results are bound to primitives directly.
+     *
+     */
+    private static final Query OBSTACLE_QUERY = QueryFactory.create(QUERY_PREFIX
+            + "SELECT ?polygon_ind ?index ?x ?y"
+            + "{"
+            + "?obstacle_ind mars:hasRegion ?region_ind ."
+            + "?region_ind mars:hasPolygon ?polygon_ind ."
+            + "?region_ind mars:hasObstacleIndex ?index ."
+            + "?polygon_ind mars:hasVertex ?vertex_ind ."
+            + "?vertex_ind mars:hasVertexOrder ?order ."
+            + "?vertex_ind mars:hasXCoordinate ?x ."
+            + "?vertex_ind mars:hasYCoordinate ?y"
+            + "}"
+            + "ORDER BY ?polygon_ind ?order");
+    private static final Query CONFLICT_QUERY = QueryFactory.create(QUERY_PREFIX
+            + "SELECT ?center_x ?center_y ?conflict_range ?exptected_conflict_time ?decided_conflict_time ?uav_index"
+            + "{"
+            + "?conflict_ind rdf:type mars:Conflict ."
+            + "?conflict_ind mars:hasConflictCenterX ?center_x ."
+            + "?conflict_ind mars:hasConflictCenterY ?center_y ."
+            + "?conflict_ind mars:hasConflictRange ?conflict_range ."
+            + "?conflict_ind mars:hasExpectedConflictTime ?exptected_conflict_time ."
+            + "?conflict_ind mars:hasDecidedConflictTime ?decided_conflict_time ."
+            + "?conflict_ind mars:conflictFromRobot ?uav_index"
+            + "}");
+    private static final Query THREAT_QUERY = QueryFactory.create(QUERY_PREFIX
+            + "SELECT ?center_x ?center_y ?speed ?range ?threatCap ?index ?threat_enabled"
+            + "{"
+            + "?threat_ind mars:hasThreatCenterX ?center_x ."
+            + "?threat_ind mars:hasThreatCenterY ?center_y ."
+            + "?threat_ind mars:hasThreatSpeed ?speed ."
+            + "?threat_ind mars:hasThreatRange ?range ."
+            + "?threat_ind mars:hasThreatIndex ?index ."
+            + "?threat_ind mars:threatEnabled ?threat_enabled ."
+            + "?threat_ind mars:hasThreatCapability ?threatCap"
+            + "}");
 
     public OntologyBasedKnowledge() {
         super();
@@ -123,6 +176,13 @@ public class OntologyBasedKnowledge extends KnowledgeInterface {
         has_polygon = ontology_based_knowledge.createObjectProperty(base_ns + "hasPolygon");
         has_lowerbound = ontology_based_knowledge.createObjectProperty(base_ns + "hasLowerBound");
         has_upperbound = ontology_based_knowledge.createObjectProperty(base_ns + "hasUpperBound");
+        has_vertex = ontology_based_knowledge.createObjectProperty(base_ns + "hasVertex");
+
+        //the vertexes of polygon are points with their order in the polygon
+        Point_Class = ontology_based_knowledge.createClass(base_ns + "Point");
+        hasXCoordinate = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasXCoordinate");
+        hasYCoordinate = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasYCoordinate");
+        hasVertexOrder = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasVertexOrder");
 
         has_points = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasPoints");
         hasMaxXCoordinate = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasMaxXCoordinate");
@@ -134,7 +194,8 @@ public class OntologyBasedKnowledge extends KnowledgeInterface {
         //class and property for threat
         Threat_Class = ontology_based_knowledge.createClass(base_ns + "Threat");
 
-        hasThreatCenter = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasThreatCenter");
+        hasThreatCenterX = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasThreatCenterX");
+        hasThreatCenterY = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasThreatCenterY");
         hasThreatSpeed = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasThreatSpeed");
         hasThreatRange = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasThreatRange");
         hasThreatCapability = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasThreatCapability");
@@ -143,7 +204,8 @@ public class OntologyBasedKnowledge extends KnowledgeInterface {
 
         //class and property for conflict
         Conflict_Class = ontology_based_knowledge.createClass(base_ns + "Conflict");
-        hasConflictCenter = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasConflictCenter");
+        hasConflictCenterX = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasConflictCenterX");
+        hasConflictCenterY = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasConflictCenterY");
         hasConflictRange = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasConflictRange");
         hasExpectedConflictTime = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasExpectedConflictTime");
         hasDecidedConflictTime = ontology_based_knowledge.createDatatypeProperty(base_ns + "hasDecidedConflictTime");
@@ -285,96 +347,114 @@ public class OntologyBasedKnowledge extends KnowledgeInterface {
 
     @Override
     public ArrayList<Obstacle> getObstacles() {
+        ArrayList<Obstacle> obstacles = loadObstacles();
+        this.obstacles_cache_shared = true;
+        return obstacles;
+    }
+
+    /** get the cache which can be patched in place.
+     *
+     * @return
+     */
+    private ArrayList<Obstacle> obstaclesForWrite() {
+        ArrayList<Obstacle> obstacles = loadObstacles();
+        if (this.obstacles_cache_shared) {
+            this.obstacles_cache = new ArrayList<Obstacle>(obstacles);
+            this.obstacles_cache_shared = false;
+        }
+        return this.obstacles_cache;
+    }
+
+    private ArrayList<Obstacle> loadObstacles() {
         if (!this.obstacle_updated) {
             return this.obstacles_cache;
         }
+        flushPendingWrites();
         ArrayList<Obstacle> obstacles = new ArrayList<Obstacle>();
-        String sparql = "SELECT ?points ?index"
-                + "{"
-                + "?obstacle_ind mars:hasRegion ?region_ind ."
-                + "?region_ind mars:hasPolygon ?polygon_ind ."
-                + "?region_ind mars:hasObstacleIndex ?index ."
-                + "?polygon_ind mars:hasPoints ?points"
-                + "}";
-        Query query = QueryFactory.create(prefix + sparql);
-        QueryExecution qe = QueryExecutionFactory.create(query, ontology_based_knowledge);
-        ResultSet results = qe.execSelect();
-        while (results.hasNext()) {
-            QuerySolution result = results.next();
-            Polygon polygon = new Polygon();
-            String raw_points_str = StringUtil.parseLiteralStr(result.get("points").toString());
-            String[] points_str = raw_points_str.split(" ");
-            for (String point_str : points_str) {
-                String[] coord_str = point_str.split(",");
-                int[] coord = new int[2];
-                coord[0] = Integer.parseInt(coord_str[0]);
-                coord[1] = Integer.parseInt(coord_str[1]);
-                polygon.addPoint(coord[0], coord[1]);
+        QueryExecution qe = QueryExecutionFactory.create(OBSTACLE_QUERY, ontology_based_knowledge);
+        try {
+            //the vertexes of a polygon are in consecutive rows in their order
+            ResultSet results = qe.execSelect();
+            RDFNode current_polygon_ind = null;
+            Polygon polygon = null;
+            int obstacle_index = 0;
+            while (results.hasNext()) {
+                QuerySolution result = results.next();
+                RDFNode polygon_ind = result.get("polygon_ind");
+                if (!polygon_ind.equals(current_polygon_ind)) {
+                    if (polygon != null) {
+                        obstacles.add(new Obstacle(polygon, obstacle_index));
+                    }
+                    current_polygon_ind = polygon_ind;
+                    polygon = new Polygon();
+                    obstacle_index = result.getLiteral("index").getInt();
+                }
+                polygon.addPoint(result.getLiteral("x").getInt(), result.getLiteral("y").getInt());
             }
-
-            String raw_obstacle_index = StringUtil.parseLiteralStr(result.get("index").toString());
-            Integer obstacle_index = Integer.parseInt(raw_obstacle_index);
-            Obstacle obstacle = new Obstacle(polygon, 0);
-            obstacle.setIndex(obstacle_index);
-            obstacles.add(obstacle);
+            if (polygon != null) {
+                obstacles.add(new Obstacle(polygon, obstacle_index));
+            }
+        } finally {
+            qe.close();
         }
         this.obstacles_cache = obstacles;
+        reindexObstacles();
         this.obstacle_updated = false;
         return obstacles;
     }
 
     @Override
     public ArrayList<Conflict> getConflicts() {
+        ArrayList<Conflict> conflicts = loadConflicts();
+        this.conflicts_cache_shared = true;
+        return conflicts;
+    }
+
+    /** get the cache which can be patched in place.
+     *
+     * @return
+     */
+    private ArrayList<Conflict> conflictsForWrite() {
+        ArrayList<Conflict> conflicts = loadConflicts();
+        if (this.conflicts_cache_shared) {
+            this.conflicts_cache = new ArrayList<Conflict>(conflicts);
+            this.conflicts_cache_shared = false;
+        }
+        return this.conflicts_cache;
+    }
+
+    private ArrayList<Conflict> loadConflicts() {
         if (!this.conflict_updated) {
             return this.conflicts_cache;
         }
+        flushPendingWrites();
         ArrayList<Conflict> conflicts = new ArrayList<Conflict>();
         Map<Integer, Conflict> conflict_map = new HashMap<Integer, Conflict>();
-        String sparql = "SELECT ?conflict_center ?conflict_range ?exptected_conflict_time ?decided_conflict_time ?uav_index"
-                + "{"
-                + "?conflict_ind rdf:type mars:Conflict ."
-                + "?conflict_ind mars:hasConflictCenter ?conflict_center ."
-                + "?conflict_ind mars:hasConflictRange ?conflict_range ."
-                + "?conflict_ind mars:hasExpectedConflictTime ?exptected_conflict_time ."
-                + "?conflict_ind mars:hasDecidedConflictTime ?decided_conflict_time ."
-                + "?conflict_ind mars:conflictFromRobot ?uav_index"
-                + "}";
-        Query query = QueryFactory.create(prefix + sparql);
-        QueryExecution qe = QueryExecutionFactory.create(query, ontology_based_knowledge);
-        ResultSet results = qe.execSelect();
-//        ResultSetFormatter.out(System.out, results, query);
-        while (results.hasNext()) {
-            QuerySolution result = results.next();
-            String raw_center_str = StringUtil.parseLiteralStr(result.get("conflict_center").toString());
-            String[] coord_str = raw_center_str.split(",");
-            float[] center_coord = new float[2];
-            center_coord[0] = Float.parseFloat(coord_str[0]);
-            center_coord[1] = Float.parseFloat(coord_str[1]);
-
-            String raw_range_str = StringUtil.parseLiteralStr(result.get("conflict_range").toString());
-            float range = Float.parseFloat(raw_range_str);
-
-            String raw_expected_conflict_time_str = StringUtil.parseLiteralStr(result.get("exptected_conflict_time").toString());
-            int expected_conflict_time = Integer.parseInt(raw_expected_conflict_time_str);
-
-            String raw_decided_conflict_time_str = StringUtil.parseLiteralStr(result.get("decided_conflict_time").toString());
-            int decided_conflict_time = Integer.parseInt(raw_decided_conflict_time_str);
-
-            String raw_uav_index_str = StringUtil.parseLiteralStr(result.get("uav_index").toString());
-            int uav_index = Integer.parseInt(raw_uav_index_str);
-
-            Point point = new Point(center_coord[0], center_coord[1], 0);
-            point.setDecision_time_step(decided_conflict_time);
-            point.setExptected_time_step(expected_conflict_time);
-
-            Conflict conflict = conflict_map.get(uav_index);
-            if (conflict == null) {
-                LinkedList<Point> path = new LinkedList<Point>();
-                conflict = new Conflict(uav_index, path, decided_conflict_time, range);
-                conflict_map.put(uav_index, conflict);
+        QueryExecution qe = QueryExecutionFactory.create(CONFLICT_QUERY, ontology_based_knowledge);
+        try {
+            ResultSet results = qe.execSelect();
+            while (results.hasNext()) {
+                QuerySolution result = results.next();
+                float range = result.getLiteral("conflict_range").getFloat();
+                int expected_conflict_time = result.getLiteral("exptected_conflict_time").getInt();
+                int decided_conflict_time = result.getLiteral("decided_conflict_time").getInt();
+                int uav_index = result.getLiteral("uav_index").getInt();
+
+                Point point = new Point(result.getLiteral("center_x").getDouble(), result.getLiteral("center_y").getDouble(), 0);
+                point.setDecision_time_step(decided_conflict_time);
+                point.setExptected_time_step(expected_conflict_time);
+
+                Conflict conflict = conflict_map.get(uav_index);
+                if (conflict == null) {
+                    LinkedList<Point> path = new LinkedList<Point>();
+                    conflict = new Conflict(uav_index, path, decided_conflict_time, range);
+                    conflict_map.put(uav_index, conflict);
+                }
+                LinkedList<Point> path = conflict.getPath_prefound();
+                path.add(point);
             }
-            LinkedList<Point> path = conflict.getPath_prefound();
-            path.add(point);
+        } finally {
+            qe.close();
         }
         Iterator<Conflict> conflict_iter = conflict_map.values().iterator();
         while (conflict_iter.hasNext()) {
@@ -389,57 +469,51 @@ public class OntologyBasedKnowledge extends KnowledgeInterface {
 
     @Override
     public ArrayList<Threat> getThreats() {
+        ArrayList<Threat> threats = loadThreats();
+        this.threats_cache_shared = true;
+        return threats;
+    }
+
+    /** get the cache which can be patched in place.
+     *
+     * @return
+     */
+    private ArrayList<Threat> threatsForWrite() {
+        ArrayList<Threat> threats = loadThreats();
+        if (this.threats_cache_shared) {
+            this.threats_cache = new ArrayList<Threat>(threats);
+            this.threats_cache_shared = false;
+        }
+        return this.threats_cache;
+    }
+
+    private ArrayList<Threat> loadThreats() {
         if (!this.threat_updated) {
             return this.threats_cache;
         }
+        flushPendingWrites();
         ArrayList<Threat> threats = new ArrayList<Threat>();
-        String sparql = "SELECT ?center ?speed ?range ?threatCap ?index ?threat_enabled"
-                + "{"
-                + "?threat_ind mars:hasThreatCenter ?center ."
-                + "?threat_ind mars:hasThreatSpeed ?speed ."
-                + "?threat_ind mars:hasThreatRange ?range ."
-                + "?threat_ind mars:hasThreatIndex ?index ."
-                + "?threat_ind mars:threatEnabled ?threat_enabled ."
-                + "?threat_ind mars:hasThreatCapability ?threatCap"
-                + "}";
-        Query query = QueryFactory.create(prefix + sparql);
-        QueryExecution qe = QueryExecutionFactory.create(query, ontology_based_knowledge);
-        ResultSet results = qe.execSelect();
-        while (results.hasNext()) {
-            QuerySolution result = results.next();
-            String raw_center_str = StringUtil.parseLiteralStr(result.get("center").toString());
-            String[] coord_str = raw_center_str.split(",");
-            float[] center_coord = new float[2];
-            center_coord[0] = Float.parseFloat(coord_str[0]);
-            center_coord[1] = Float.parseFloat(coord_str[1]);
-
-            String raw_speed_str = StringUtil.parseLiteralStr(result.get("speed").toString());
-            float speed = Float.parseFloat(raw_speed_str);
-
-            String raw_range_str = StringUtil.parseLiteralStr(result.get("range").toString());
-            float range = Float.parseFloat(raw_range_str);
-
-            String raw_therat_cap_str = StringUtil.parseLiteralStr(result.get("threatCap").toString());
-
-            String raw_threat_index = StringUtil.parseLiteralStr(result.get("index").toString());
-            Integer threat_index = Integer.parseInt(raw_threat_index);
-
-            String raw_threat_enabled_index = StringUtil.parseLiteralStr(result.get("threat_enabled").toString());
-            boolean threat_enabled = false;
-            if (raw_threat_enabled_index.equals("true")) {
-                threat_enabled = true;
-            } else {
-                threat_enabled = false;
+        QueryExecution qe = QueryExecutionFactory.create(THREAT_QUERY, ontology_based_knowledge);
+        try {
+            ResultSet results = qe.execSelect();
+            while (results.hasNext()) {
+                QuerySolution result = results.next();
+                float[] center_coord = new float[2];
+                center_coord[0] = result.getLiteral("center_x").getFloat();
+                center_coord[1] = result.getLiteral("center_y").getFloat();
+                float speed = result.getLiteral("speed").getFloat();
+
+                Threat threat = new Threat(result.getLiteral("index").getInt(), center_coord, 0, speed);
+                threat.setThreat_cap(result.getLiteral("threatCap").getString());
+                threat.setThreat_range(result.getLiteral("range").getFloat());
+                threat.setEnabled(result.getLiteral("threat_enabled").getBoolean());
+                threats.add(threat);
             }
-
-            Threat threat = new Threat(0, center_coord, 0, speed);
-            threat.setThreat_cap(raw_therat_cap_str);
-            threat.setThreat_range(range);
-            threat.setIndex(threat_index);
-            threat.setEnabled(threat_enabled);
-            threats.add(threat);
+        } finally {
+            qe.close();
         }
         this.threats_cache = threats;
+        reindexThreats();
         this.threat_updated = false;
         return threats;
     }
@@ -449,80 +523,165 @@ public class OntologyBasedKnowledge extends KnowledgeInterface {
                 .removeAll(null, has_points, null).removeAll(null, has_lowerbound, null).removeAll(null, has_upperbound, null)
                 .removeAll(null, hasMaxXCoordinate, null).removeAll(null, hasMaxYCoordinate, null).removeAll(null, hasMinXCoordinate, null)
                 .removeAll(null, hasMinYCoordinate, null).removeAll(null, hasObstacleIndex, null)
+                .removeAll(null, has_vertex, null).removeAll(null, hasVertexOrder, null).removeAll(null, hasXCoordinate, null).removeAll(null, hasYCoordinate, null)
+                .removeAll(null, rdf_type, Point_Class)
                 .removeAll(Obstacle_Class, rdf_type, null).removeAll(Region_Class, rdf_type, null)
                 .removeAll(Polygon_Class, rdf_type, null).removeAll(LowerBoundOfRegion_Class, rdf_type, null).removeAll(UpperBoundOfRegion_Class, rdf_type, null)
                 .removeAll(null, rdf_type, Obstacle_Class).removeAll(null, rdf_type, Region_Class).removeAll(null, rdf_type, Polygon_Class)
                 .removeAll(null, rdf_type, LowerBoundOfRegion_Class).removeAll(null, rdf_type, UpperBoundOfRegion_Class);
-        this.obstacle_num = 0;
-        this.obstacle_updated = true;
         return m;
     }
 
     public Model deleteAllThreats() {
-        Model m = ontology_based_knowledge.removeAll(null, hasThreatCenter, null).removeAll(null, hasThreatSpeed, null)
+        Model m = ontology_based_knowledge.removeAll(null, hasThreatCenterX, null).removeAll(null, hasThreatCenterY, null).removeAll(null, hasThreatSpeed, null)
                 .removeAll(null, hasThreatRange, null).removeAll(null, hasThreatCapability, null).removeAll(null, hasThreatIndex, null).removeAll(null, threatEnabled, null)
                 .removeAll(null, rdf_type, Threat_Class).removeAll(Threat_Class, rdf_type, null);
-        this.threat_num = 0;
-        this.threat_updated = true;
         return m;
     }
 
     public Model deleteAllConflicts() {
-        Model m = ontology_based_knowledge.removeAll(null, hasConflictCenter, null).removeAll(null, hasConflictRange, null)
+        Model m = ontology_based_knowledge.removeAll(null, hasConflictCenterX, null).removeAll(null, hasConflictCenterY, null).removeAll(null, hasConflictRange, null)
                 .removeAll(null, hasExpectedConflictTime, null).removeAll(null, hasDecidedConflictTime, null).removeAll(null, this.conflictFromRobot, null)
                 .removeAll(null, rdf_type, Conflict_Class).removeAll(Conflict_Class, rdf_type, null);
-        this.conflict_num = 0;
-        this.conflict_updated = true;
         return m;
     }
 
+    /** remove the individuals of the conflict points from the uav.
+     *
+     * @param uav_index
+     */
+    private void deleteConflictsFromRobot(int uav_index) {
+        Literal conflict_from_robot = ontology_based_knowledge.createTypedLiteral(uav_index);
+        ArrayList<Resource> conflict_individuals = new ArrayList<Resource>();
+        StmtIterator smt_list_to_find_conflict = ontology_based_knowledge.listStatements(null, conflictFromRobot, conflict_from_robot);
+        while (smt_list_to_find_conflict.hasNext()) {
+            conflict_individuals.add(smt_list_to_find_conflict.nextStatement().getSubject());
+        }
+        for (Resource conflict_individual : conflict_individuals) {
+            ontology_based_knowledge = (OntModel) ontology_based_knowledge.removeAll(conflict_individual, null, null).removeAll(null, null, conflict_individual);
+        }
+    }
+
+    /** apply the writes to the model which are delayed by the changes of knowledge.
+     * It is called before the model is read.
+     *
+     */
+    public void flushPendingWrites() {
+        while (!pending_writes.isEmpty()) {
+            pending_writes.removeFirst().run();
+        }
+    }
+
+    /** get the model with all the pending writes applied.
+     *
+     * @return
+     */
+    public OntModel getOntology_based_knowledge() {
+        flushPendingWrites();
+        return ontology_based_knowledge;
+    }
+
+    private void writeBehind(Runnable write) {
+        pending_writes.add(write);
+    }
+
     @Override
     public void setObstacles(ArrayList<Obstacle> obstacles) {
-        ontology_based_knowledge = (OntModel) deleteAllObstacles();
+        final ArrayList<Obstacle> obstacles_to_write = new ArrayList<Obstacle>();
         if (obstacles != null) {
-            int obstacle_num = obstacles.size();
-            for (int i = 0; i < obstacle_num; i++) {
-                this.addObstacle(obstacles.get(i));
-            }
-            this.obstacle_num = obstacle_num;
+            obstacles_to_write.addAll(obstacles);
         }
-        this.obstacle_updated = true;
+        this.obstacles_cache = new ArrayList<Obstacle>(obstacles_to_write);
+        this.obstacles_cache_shared = false;
+        reindexObstacles();
+        this.obstacle_num = obstacles_cache.size();
+        this.obstacle_updated = false;
+        writeBehind(new Runnable() {
+
+            @Override
+            public void run() {
+                ontology_based_knowledge = (OntModel) deleteAllObstacles();
+                for (Obstacle obstacle : obstacles_to_write) {
+                    writeObstacle(obstacle);
+                }
+            }
+        });
     }
 
     @Override
     public void setConflicts(ArrayList<Conflict> conflicts) {
-        ontology_based_knowledge = (OntModel) deleteAllConflicts();
+        this.conflicts_cache = new ArrayList<Conflict>();
+        this.conflicts_cache_shared = false;
         if (conflicts != null) {
-            int conflict_num = conflicts.size();
-            for (int i = 0; i < conflict_num; i++) {
-                this.addConflict(conflicts.get(i));
+            for (Conflict conflict : conflicts) {
+                int index_in_cache = indexOfConflictFromRobot(conflict.getUav_index());
+                if (index_in_cache >= 0) {
+                    conflicts_cache.set(index_in_cache, conflict);
+                } else {
+                    conflicts_cache.add(conflict);
+                }
             }
-            this.conflict_num = conflict_num;
         }
-        this.conflict_updated = true;
+        this.conflict_num = conflicts_cache.size();
+        this.conflict_updated = false;
+        final ArrayList<Conflict> conflicts_to_write = new ArrayList<Conflict>(conflicts_cache);
+        writeBehind(new Runnable() {
+
+            @Override
+            public void run() {
+                ontology_based_knowledge = (OntModel) deleteAllConflicts();
+                for (Conflict conflict : conflicts_to_write) {
+                    writeConflict(conflict);
+                }
+            }
+        });
     }
 
     @Override
     public void setThreats(ArrayList<Threat> threats) {
-        ontology_based_knowledge = (OntModel) deleteAllThreats();
+        this.threats_cache = new ArrayList<Threat>();
+        this.threats_cache_shared = false;
         if (threats != null) {
-            int threat_num = threats.size();
-            for (int i = 0; i < threat_num; i++) {
-                this.addThreat(threats.get(i));
+            for (Threat threat : threats) {
+                threats_cache.add(snapshotOf(threat));
             }
-            this.threat_num = threat_num;
         }
-        this.threat_updated = true;
+        reindexThreats();
+        this.threat_num = threats_cache.size();
+        this.threat_updated = false;
+        final ArrayList<Threat> threats_to_write = new ArrayList<Threat>(threats_cache);
+        writeBehind(new Runnable() {
+
+            @Override
+            public void run() {
+                ontology_based_knowledge = (OntModel) deleteAllThreats();
+                for (Threat threat : threats_to_write) {
+                    writeThreat(threat);
+                }
+            }
+        });
     }
 
     @Override
-    public void addObstacle(Obstacle obs) {
+    public void addObstacle(final Obstacle obs) {
+        obstaclesForWrite().add(obs);
+        obstacle_index_map.put(obs.getIndex(), obs);
+        this.obstacle_num = obstacles_cache.size();
+        writeBehind(new Runnable() {
+
+            @Override
+            public void run() {
+                writeObstacle(obs);
+            }
+        });
+    }
+
+    private void writeObstacle(Obstacle obs) {
         Individual obs_individual = Obstacle_Class.createIndividual();
         Individual region_individual = Region_Class.createIndividual();
         Individual polygon_individual = Polygon_Class.createIndividual();
         Individual lowerbound_individual = LowerBoundOfRegion_Class.createIndividual();
         Individual upperbound_individual = UpperBoundOfRegion_Class.createIndividual();
-
         Literal points = ontology_based_knowledge.createTypedLiteral(obs.getPointsStr());
 //        logger.debug("------------------"+points);
         Literal max_x_coordinate = ontology_based_knowledge.createTypedLiteral(obs.getMbr().getMaxX());
@@ -541,88 +700,130 @@ public class OntologyBasedKnowledge extends KnowledgeInterface {
         lowerbound_individual.addProperty(hasMinYCoordinate, min_y_coordinate);
         upperbound_individual.addProperty(hasMaxXCoordinate, max_x_coordinate);
         upperbound_individual.addProperty(hasMaxYCoordinate, max_y_coordinate);
-        this.obstacle_num++;
-        this.obstacle_updated = true;
+
+        Polygon shape = obs.getShape();
+        for (int i = 0; i < shape.npoints; i++) {
+            Individual vertex_individual = Point_Class.createIndividual();
+            vertex_individual.addLiteral(hasVertexOrder, ontology_based_knowledge.createTypedLiteral(i));
+            vertex_individual.addLiteral(hasXCoordinate, ontology_based_knowledge.createTypedLiteral(shape.xpoints[i]));
+            vertex_individual.addLiteral(hasYCoordinate, ontology_based_knowledge.createTypedLiteral(shape.ypoints[i]));
+            polygon_individual.addProperty(has_vertex, vertex_individual);
+        }
     }
 
+    /** add the conflict, the conflict from the same uav is replaced.
+     *
+     * @param conflict
+     */
     @Override
-    public void addConflict(Conflict conflict) {
-        ArrayList<Conflict> conflicts = this.getConflicts();
-        if (conflict_num == 0) {
-            addConflictWithoutCheck(conflict);
-            return;
+    public void addConflict(final Conflict conflict) {
+        ArrayList<Conflict> conflicts = conflictsForWrite();
+        final int uav_index = conflict.getUav_index();
+        int index_in_cache = indexOfConflictFromRobot(uav_index);
+        if (index_in_cache >= 0) {
+            conflicts.set(index_in_cache, conflict);
+        } else {
+            conflicts.add(conflict);
         }
-        for (int i = 0; i < conflict_num; i++) {
-            Conflict temp_conflict = conflicts.get(i);
-            if (temp_conflict.getUav_index() == conflict.getUav_index()) {
-                this.removeConflict(temp_conflict);
-                addConflictWithoutCheck(conflict);
-                return;
+        this.conflict_num = conflicts.size();
+        writeBehind(new Runnable() {
+
+            @Override
+            public void run() {
+                deleteConflictsFromRobot(uav_index);
+                writeConflict(conflict);
             }
-        }
-        addConflictWithoutCheck(conflict);
-        conflict_num++;
+        });
     }
 
-    private void addConflictWithoutCheck(Conflict conflict) {
+    private int indexOfConflictFromRobot(int uav_index) {
+        int conflicts_size = conflicts_cache.size();
+        for (int i = 0; i < conflicts_size; i++) {
+            if (conflicts_cache.get(i).getUav_index() == uav_index) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
+    private void writeConflict(Conflict conflict) {
         LinkedList<Point> path = conflict.getPath_prefound();
         int path_len = path.size();
         for (int i = 0; i < path_len; i++) {
             Point conflict_point = path.get(i);
             Individual conflict_individual = Conflict_Class.createIndividual();
-            Literal center = ontology_based_knowledge.createTypedLiteral(conflict_point.getX() + "," + conflict_point.getY());
+            Literal center_x = ontology_based_knowledge.createTypedLiteral(conflict_point.getX());
+            Literal center_y = ontology_based_knowledge.createTypedLiteral(conflict_point.getY());
             Literal conflict_range = ontology_based_knowledge.createTypedLiteral(conflict.getConflict_range());
             Literal exptected_conflict_time = ontology_based_knowledge.createTypedLiteral(conflict_point.getExptected_time_step());
             Literal decided_conflict_time = ontology_based_knowledge.createTypedLiteral(conflict_point.getDecision_time_step());
             Literal conflict_from_robot = ontology_based_knowledge.createTypedLiteral(conflict.getUav_index());
-            conflict_individual.addProperty(hasConflictCenter, center);
+            conflict_individual.addProperty(hasConflictCenterX, center_x);
+            conflict_individual.addProperty(hasConflictCenterY, center_y);
             conflict_individual.addProperty(hasConflictRange, conflict_range);
             conflict_individual.addProperty(hasExpectedConflictTime, exptected_conflict_time);
             conflict_individual.addProperty(hasDecidedConflictTime, decided_conflict_time);
             conflict_individual.addProperty(conflictFromRobot, conflict_from_robot);
         }
-        this.conflict_num++;
-        this.conflict_updated = true;
     }
 
     @Override
     public void addThreat(Threat threat) {
-        Individual threat_individual = Threat_Class.createIndividual();
+        final Threat threat_snapshot = snapshotOf(threat);
+        threatsForWrite().add(threat_snapshot);
+        threat_index_map.put(threat_snapshot.getIndex(), threat_snapshot);
+        this.threat_num = threats_cache.size();
+        writeBehind(new Runnable() {
+
+            @Override
+            public void run() {
+                writeThreat(threat_snapshot);
+            }
+        });
+    }
 
-        Literal center = ontology_based_knowledge.createTypedLiteral(threat.getCoordinates()[0] + "," + threat.getCoordinates()[1]);
+    private void writeThreat(Threat threat) {
+        Individual threat_individual = Threat_Class.createIndividual();
+        Literal center_x = ontology_based_knowledge.createTypedLiteral(threat.getCoordinates()[0]);
+        Literal center_y = ontology_based_knowledge.createTypedLiteral(threat.getCoordinates()[1]);
         Literal speed = ontology_based_knowledge.createTypedLiteral(threat.getSpeed());
         Literal threat_range = ontology_based_knowledge.createTypedLiteral(threat.getThreat_range());
         Literal threat_cap = ontology_based_knowledge.createTypedLiteral(threat.getThreat_cap());
         Literal threat_index = ontology_based_knowledge.createTypedLiteral(threat.getIndex());
         Literal threat_enabled = ontology_based_knowledge.createTypedLiteral(threat.isEnabled());
-
-        threat_individual.addProperty(hasThreatCenter, center);
+        threat_individual.addProperty(hasThreatCenterX, center_x);
+        threat_individual.addProperty(hasThreatCenterY, center_y);
         threat_individual.addProperty(hasThreatSpeed, speed);
         threat_individual.addProperty(hasThreatRange, threat_range);
         threat_individual.addProperty(hasThreatCapability, threat_cap);
         threat_individual.addProperty(hasThreatIndex, threat_index);
         threat_individual.addProperty(threatEnabled, threat_enabled);
-        this.threat_num++;
-        this.threat_updated = true;
     }
 
     @Override
     public boolean containsThreat(Threat threat) {
-        Literal center = ontology_based_knowledge.createTypedLiteral(threat.getCoordinates()[0] + "," + threat.getCoordinates()[1]);
-        Selector selector = new SimpleSelector(null, hasThreatCenter, center);
-        Model result_model = ontology_based_knowledge.query(selector);
-//        printStatements(result_model);
-        return result_model.listStatements().hasNext();
+        loadThreats();
+        return sameThreatCenter(threat_index_map.get(threat.getIndex()), threat);
     }
 
     @Override
     public boolean containsObstacle(Obstacle obstacle) {
-        Literal points = ontology_based_knowledge.createTypedLiteral(obstacle.getPointsStr());
-        Selector selector = new SimpleSelector(null, has_points, points);
-        Model result_model = ontology_based_knowledge.query(selector);
-//        printStatements(result_model);
-        return result_model.listStatements().hasNext();
+        loadObstacles();
+        return sameObstacleShape(obstacle_index_map.get(obstacle.getIndex()), obstacle);
+    }
+
+    private void reindexObstacles() {
+        obstacle_index_map.clear();
+        for (Obstacle obstacle : obstacles_cache) {
+            obstacle_index_map.put(obstacle.getIndex(), obstacle);
+        }
+    }
+
+    private void reindexThreats() {
+        threat_index_map.clear();
+        for (Threat threat : threats_cache) {
+            threat_index_map.put(threat.getIndex(), threat);
+        }
     }
 
     @Override
@@ -632,7 +833,30 @@ public class OntologyBasedKnowledge extends KnowledgeInterface {
 
     @Override
     public boolean removeObstacle(Obstacle obstacle) {
-        Literal points = ontology_based_knowledge.createTypedLiteral(obstacle.getPointsStr());
+        final String points_str = obstacle.getPointsStr();
+        ArrayList<Obstacle> obstacles = loadObstacles();
+        int obstacles_size = obstacles.size();
+        for (int i = 0; i < obstacles_size; i++) {
+            if (obstacles.get(i).getPointsStr().equals(points_str)) {
+                obstacles = obstaclesForWrite();
+                obstacles.remove(i);
+                reindexObstacles();
+                this.obstacle_num = obstacles.size();
+                writeBehind(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        deleteObstacle(points_str);
+                    }
+                });
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void deleteObstacle(String points_str) {
+        Literal points = ontology_based_knowledge.createTypedLiteral(points_str);
         StmtIterator smt_list_to_find_polygon = ontology_based_knowledge.listStatements(null, has_points, points);
         if (smt_list_to_find_polygon.hasNext()) {
             Resource polygon_individual = smt_list_to_find_polygon.nextStatement().getSubject();
@@ -659,12 +883,15 @@ public class OntologyBasedKnowledge extends KnowledgeInterface {
                 }
                 ontology_based_knowledge = (OntModel) ontology_based_knowledge.removeAll(region_individual, has_polygon, null).removeAll(region_individual, this.has_lowerbound, null).removeAll(region_individual, this.has_upperbound, null);
             }
+            ArrayList<RDFNode> vertex_individuals = new ArrayList<RDFNode>();
+            StmtIterator smt_list_to_find_vertex = ontology_based_knowledge.listStatements(polygon_individual, has_vertex, null_node);
+            while (smt_list_to_find_vertex.hasNext()) {
+                vertex_individuals.add(smt_list_to_find_vertex.nextStatement().getObject());
+            }
+            for (RDFNode vertex_individual : vertex_individuals) {
+                ontology_based_knowledge = (OntModel) ontology_based_knowledge.removeAll((Resource) vertex_individual, null, null);
+            }
             ontology_based_knowledge = (OntModel) ontology_based_knowledge.removeAll(polygon_individual, null, null);
-            this.obstacle_num--;
-            this.obstacle_updated = true;
-            return true;
-        } else {
-            return false;
         }
     }
 
@@ -684,21 +911,55 @@ public class OntologyBasedKnowledge extends KnowledgeInterface {
 //    }
     @Override
     public boolean removeThreat(Threat threat) {
-        Literal index = ontology_based_knowledge.createTypedLiteral(threat.getIndex());
-        StmtIterator smt_list_to_find_threat_individual = ontology_based_knowledge.listStatements(null, hasThreatIndex, index);
+        final int index = threat.getIndex();
+        ArrayList<Threat> threats = loadThreats();
+        int threats_size = threats.size();
+        for (int i = 0; i < threats_size; i++) {
+            if (threats.get(i).getIndex() == index) {
+                threats = threatsForWrite();
+                threats.remove(i);
+                reindexThreats();
+                this.threat_num = threats.size();
+                writeBehind(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        deleteThreat(index);
+                    }
+                });
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void deleteThreat(int index) {
+        Literal threat_index = ontology_based_knowledge.createTypedLiteral(index);
+        StmtIterator smt_list_to_find_threat_individual = ontology_based_knowledge.listStatements(null, hasThreatIndex, threat_index);
         if (smt_list_to_find_threat_individual.hasNext()) {
             Resource threat_individual = smt_list_to_find_threat_individual.next().getSubject();
-            ontology_based_knowledge = (OntModel) ontology_based_knowledge.removeAll(threat_individual, hasThreatCenter, null).removeAll(threat_individual, hasThreatSpeed, null).removeAll(threat_individual, hasThreatRange, null).removeAll(threat_individual, hasThreatCapability, null).removeAll(threat_individual, hasThreatIndex, null).removeAll(threat_individual, threatEnabled, null).removeAll(null, null, threat_individual);
-            this.threat_num--;
-            this.threat_updated = true;
-            return true;
-        } else {
-            return false;
+            ontology_based_knowledge = (OntModel) ontology_based_knowledge.removeAll(threat_individual, hasThreatCenterX, null).removeAll(threat_individual, hasThreatCenterY, null).removeAll(threat_individual, hasThreatSpeed, null).removeAll(threat_individual, hasThreatRange, null).removeAll(threat_individual, hasThreatCapability, null).removeAll(threat_individual, hasThreatIndex, null).removeAll(threat_individual, threatEnabled, null).removeAll(null, null, threat_individual);
         }
     }
 
     @Override
     public boolean removeConflict(Conflict conflict) {
-        return false;
+        final int uav_index = conflict.getUav_index();
+        loadConflicts();
+        int index_in_cache = indexOfConflictFromRobot(uav_index);
+        if (index_in_cache < 0 || conflicts_cache.get(index_in_cache) != conflict) {
+            return false;
+        }
+        ArrayList<Conflict> conflicts = conflictsForWrite();
+        conflicts.remove(index_in_cache);
+        this.conflict_num = conflicts.size();
+        writeBehind(new Runnable() {
+
+            @Override
+            public void run() {
+                deleteConflictsFromRobot(uav_index);
+            }
+        });
+        return true;
     }
 }
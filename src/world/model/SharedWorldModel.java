@@ -0,0 +1,101 @@
+/* 
+ * Copyright (c) Yulin Zhang
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * * Redistributions of source code must retain the above copyright notice, this
+ *   list of conditions and the following disclaimer.
+ * * Redistributions in binary form must reproduce the above copyright notice,
+ *   this list of conditions and the following disclaimer in the documentation
+ *   and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ */
+package world.model;
+
+import java.util.HashMap;
+import java.util.List;
+
+/** This is the world model shared by the knowledge of all attackers, it holds the obstacles and the threats when the world is built.
+ * It is never changed after construction, so the obstacles and threats are stored once however many attackers know them.
+ * The obstacles and threats are placed in slots, which are used as bit positions by LayeredKnowledge.
+ *
+ * @author Yulin_Zhang
+ */
+public class SharedWorldModel {
+
+    private final Obstacle[] obstacles;
+    private final Threat[] threats;
+    private final HashMap<Integer, Integer> obstacle_slots = new HashMap<Integer, Integer>();
+    private final HashMap<Integer, Integer> threat_slots = new HashMap<Integer, Integer>();
+
+    /** build the model, the threats are stored as snapshots so that the model does not change when they move.
+     *
+     * @param obstacles
+     * @param threats
+     */
+    public SharedWorldModel(List<Obstacle> obstacles, List<Threat> threats) {
+        int obstacle_num = obstacles == null ? 0 : obstacles.size();
+        this.obstacles = new Obstacle[obstacle_num];
+        for (int i = 0; i < obstacle_num; i++) {
+            Obstacle obstacle = obstacles.get(i);
+            this.obstacles[i] = obstacle;
+            this.obstacle_slots.put(obstacle.getIndex(), i);
+        }
+        int threat_num = threats == null ? 0 : threats.size();
+        this.threats = new Threat[threat_num];
+        for (int i = 0; i < threat_num; i++) {
+            Threat threat = KnowledgeInterface.snapshotOf(threats.get(i));
+            this.threats[i] = threat;
+            this.threat_slots.put(threat.getIndex(), i);
+        }
+    }
+
+    /** get the slot of obstacle with the index.
+     *
+     * @param obstacle_index
+     * @return the slot, -1 if the obstacle is not in the model
+     */
+    public int getObstacleSlot(int obstacle_index) {
+        Integer slot = obstacle_slots.get(obstacle_index);
+        return slot == null ? -1 : slot;
+    }
+
+    public Obstacle getObstacle(int slot) {
+        return obstacles[slot];
+    }
+
+    public int getObstacleNum() {
+        return obstacles.length;
+    }
+
+    /** get the slot of threat with the index.
+     *
+     * @param threat_index
+     * @return the slot, -1 if the threat is not in the model
+     */
+    public int getThreatSlot(int threat_index) {
+        Integer slot = threat_slots.get(threat_index);
+        return slot == null ? -1 : slot;
+    }
+
+    public Threat getThreat(int slot) {
+        return threats[slot];
+    }
+
+    public int getThreatNum() {
+        return threats.length;
+    }
+}
@@ -128,4 +128,9 @@ public class Target extends Message implements Serializable {
         return false;
     }
 
+    @Override
+    public int hashCode() {
+        return this.index;
+    }
+
 }
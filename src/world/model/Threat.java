@@ -36,7 +36,6 @@ import java.io.Serializable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import world.Message;
-import world.model.shape.Point;
 import world.uav.UAVPath;
 
 /**
@@ -79,22 +78,36 @@ public class Threat extends Target implements Serializable {
         if (path_planned_at_current_time_step.getWaypointNum() == 0 || current_index_of_planned_path >= path_planned_at_current_time_step.getWaypointNum()) {
             return false;
         }
-        Point current_waypoint = this.path_planned_at_current_time_step.getWaypoint(current_index_of_planned_path);
-        float[] coordinate = current_waypoint.toFloatArray();
-        moveTo(coordinate[0], coordinate[1]);
-        this.current_angle = (float) current_waypoint.getYaw();
+        UAVPath path = this.path_planned_at_current_time_step;
+        moveTo((float) path.getX(current_index_of_planned_path), (float) path.getY(current_index_of_planned_path));
+        this.current_angle = (float) path.getYaw(current_index_of_planned_path);
         return true;
     }
 
-    /**
+    /** move the threat, its coordinates and mbr are updated in place.
      *
      * @param center_coordinate_x
      * @param center_coordinate_y
      */
     public void moveTo(float center_coordinate_x, float center_coordinate_y) {
-        float[] coordinate = new float[]{center_coordinate_x, center_coordinate_y};
-        this.setCoordinates(coordinate);
-        this.threat_mbr=new Rectangle((int) coordinates[0] - Threat.threat_width / 2, (int) coordinates[1] - Threat.threat_height / 2, Threat.threat_width, Threat.threat_height);
+        if (this.coordinates == null) {
+            this.setCoordinates(new float[2]);
+        }
+        this.coordinates[0] = center_coordinate_x;
+        this.coordinates[1] = center_coordinate_y;
+        this.threat_mbr.setBounds((int) coordinates[0] - Threat.threat_width / 2, (int) coordinates[1] - Threat.threat_height / 2, Threat.threat_width, Threat.threat_height);
+    }
+
+    /** set the coordinates of the threat, and move its mbr with them.
+     *
+     * @param coordinates
+     */
+    @Override
+    public void setCoordinates(float[] coordinates) {
+        super.setCoordinates(coordinates);
+        if (this.threat_mbr != null && coordinates != null) {
+            this.threat_mbr.setBounds((int) coordinates[0] - Threat.threat_width / 2, (int) coordinates[1] - Threat.threat_height / 2, Threat.threat_width, Threat.threat_height);
+        }
     }
 
     @Override
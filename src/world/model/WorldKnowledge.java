@@ -28,6 +28,7 @@ package world.model;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 import javax.swing.event.TreeModelListener;
+import world.uav.UAVPath;
 
 /**
  *
@@ -66,8 +67,8 @@ public class WorldKnowledge extends KnowledgeInterface {
         threats.add(threat1);
         threats.add(threat2);
 
-        Conflict conflict1 = new Conflict(0, null, 1, 2);
-        Conflict conflict2 = new Conflict(1, null, 1, 2);
+        Conflict conflict1 = new Conflict(0, new UAVPath(), 1, 2);
+        Conflict conflict2 = new Conflict(1, new UAVPath(), 1, 2);
         conflicts.add(conflict1);
         conflicts.add(conflict2);
 
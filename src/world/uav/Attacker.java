@@ -25,15 +25,22 @@
  */
 package world.uav;
 
+import algorithm.RRT.CompactRRTTree;
+import algorithm.RRT.ParallelRRTPlanner;
 import algorithm.RRT.RRTAlg;
+import algorithm.RRT.RRTConnectAlg;
+import algorithm.RRT.RRTStarAlg;
 import algorithm.RRT.RRTTree;
 import config.NonStaticInitConfig;
 import config.StaticInitConfig;
 import java.util.LinkedList;
 import java.util.ArrayList;
+import java.util.Random;
 import util.BoundUtil;
 import util.ConflictCheckUtil;
+import util.RandomUtil;
 import util.DistanceUtil;
+import util.ReservationTable;
 import util.VectorUtil;
 import world.Message;
 
@@ -41,8 +48,10 @@ import world.model.shape.Circle;
 import world.model.Obstacle;
 import world.World;
 import world.model.Conflict;
+import world.model.IndexedKnowledge;
 import world.model.KnowledgeAwareInterface;
 import world.model.KnowledgeInterface;
+import world.model.LayeredKnowledge;
 import world.model.OntologyBasedKnowledge;
 import world.model.Target;
 import world.model.Threat;
@@ -57,6 +66,11 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
 
     private volatile UAVPath path_planned_at_current_time_step;
     private int current_index_of_planned_path = 0; //index of waypoint
+    /**
+     * the path from the current waypoint, which is published for the UI and World whenever the path committed or the waypoint changes.
+     *
+     */
+    private volatile UAVPath future_path;
     private UAVPath path_planned_at_last_time_step;//the total path planned lately.
     private UAVPath history_path;//the history path of the attacker
     private boolean need_to_replan = true;
@@ -74,6 +88,13 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
     
     private RRTAlg rrt_alg;
     private RRTTree rrt_tree;
+    private RRTAlg planned_tree_alg;//the planner which built the tree of the path planned lately
+    private ParallelRRTPlanner parallel_planner;
+    private Random random;//random source of the attacker, derived from the master seed and its index
+    private int planner_type = StaticInitConfig.RRT_PLANNER;
+    private int max_trap_times = 10;//how many times the planning is retried when no path reaches the target
+    private boolean planning_prepared = false;
+    private UAVPath path_searched;
     private static org.apache.log4j.Logger logger = org.apache.log4j.Logger.getLogger(Attacker.class);
 
     public static int FLYING_MODE = 0;
@@ -91,9 +112,16 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
         super(index, target, uav_type, center_coordinates, remained_energy);
         this.uav_radar = new Circle(center_coordinates[0], center_coordinates[1], StaticInitConfig.attacker_radar_radius);
         this.path_planned_at_current_time_step = new UAVPath();
+        this.publishFuturePath();
         this.history_path = new UAVPath();
         setPreviousWaypoint();
-        this.kb = new OntologyBasedKnowledge();//OntologyBasedKnowledge();WorldKnowledge
+        if (StaticInitConfig.use_shared_world_model && World.shared_world_model != null) {
+            this.kb = new LayeredKnowledge(World.shared_world_model);
+        } else if (StaticInitConfig.use_indexed_knowledge) {
+            this.kb = new IndexedKnowledge();
+        } else {
+            this.kb = new OntologyBasedKnowledge();//OntologyBasedKnowledge();WorldKnowledge
+        }
         this.kb.setObstacles(obstacles);
         this.speed = StaticInitConfig.SPEED_OF_ATTACKER_ON_TASK;
         if (target == null) {
@@ -101,6 +129,12 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
         } else {
             rrt_alg = new RRTAlg(super.getCenter_coordinates(), target.getCoordinates(), StaticInitConfig.rrt_goal_toward_probability, World.bound_width, World.bound_height, StaticInitConfig.rrt_iteration_times, speed, null, this.getConflicts(), this.index);
         }
+        //stream 0 of the master seed is used by the world generation
+        long random_seed = RandomUtil.deriveSeed(index + 1);
+        this.random = RandomUtil.newRandom(random_seed, 0);
+        this.rrt_alg.setRandom(RandomUtil.newRandom(random_seed, 1));
+        this.parallel_planner = new ParallelRRTPlanner(RandomUtil.deriveSeed(random_seed, 2));
+        this.setPlanner_type(StaticInitConfig.attacker_planner_type);
         initColor(index);
     }
 
@@ -109,52 +143,96 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
      * 
      */
     public void pathPlan() {
+        if (this.preparePathPlan()) {
+            this.searchPath();
+        }
+        this.commitPathPlan();
+    }
+
+    /** prepare the planning, which reads the knowledge of the attacker and sets up the planner. 
+     * The planning is split into preparePathPlan, searchPath and commitPathPlan, so that searchPath of different attackers can run concurrently. 
+     * 
+     * @return true if the attacker needs to search a path
+     */
+    public boolean preparePathPlan() {
+        this.path_searched = null;
         //if the attacker need to replan and it has target
-        if (this.need_to_replan && this.target_indicated_by_role != null) {
-            this.path_planned_at_last_time_step = this.path_planned_at_current_time_step;
-            int planning_times = 0;
-            this.goal_for_each_iteration = target_indicated_by_role.getCoordinates();
-            if (this.fly_mode == Attacker.TARGET_LOCKED_MODE && this.target_indicated_by_role.getIndex() != Threat.UAV_BASE_INDEX) {
-                this.goal_for_each_iteration = this.genRandomHoveringGoal(goal_for_each_iteration, NonStaticInitConfig.threat_range_from_obstacles/2, this.getObstacles());
-                this.speed=StaticInitConfig.SPEED_OF_ATTACKER_ON_DESTROYING_THREAT;
-                this.rrt_alg.setMax_angle((float) Math.PI / 5);
-            }else if(this.fly_mode== Attacker.FLYING_MODE && this.target_indicated_by_role.getIndex() == Threat.UAV_BASE_INDEX)
-            {
-                this.speed=StaticInitConfig.SPEED_OF_ATTACKER_IDLE;
-                this.rrt_alg.setMax_angle((float) Math.PI / 6);
-            }else if(this.fly_mode== Attacker.FLYING_MODE && this.target_indicated_by_role.getIndex() != Threat.UAV_BASE_INDEX)
-            {
-                this.speed=StaticInitConfig.SPEED_OF_ATTACKER_ON_TASK;
-                this.rrt_alg.setMax_angle((float) Math.PI / 6);
-            }
-            
-            
-            if (this.target_indicated_by_role.getIndex() == Threat.UAV_BASE_INDEX) {
-                logger.debug("find path for retunning uav");
-            } else {
-                logger.debug("find path for busy uav");
-            }
-            UAVPath shortest_path = null;
-            float shotest_path_length = Float.MAX_VALUE;
-            planning_times = StaticInitConfig.rrt_planning_times_for_attacker;
-            boolean available_path_found = false;
-            int nums_of_trap = 0;
+        this.planning_prepared = this.need_to_replan && this.target_indicated_by_role != null;
+        if (!this.planning_prepared) {
+            return false;
+        }
+        this.path_planned_at_last_time_step = this.path_planned_at_current_time_step;
+        //copy the coordinates of the target, since a threat moves them in place
+        float[] target_coordinates = target_indicated_by_role.getCoordinates();
+        this.goal_for_each_iteration = new float[]{target_coordinates[0], target_coordinates[1]};
+        if (this.fly_mode == Attacker.TARGET_LOCKED_MODE && this.target_indicated_by_role.getIndex() != Threat.UAV_BASE_INDEX) {
+            this.goal_for_each_iteration = this.genRandomHoveringGoal(goal_for_each_iteration, NonStaticInitConfig.threat_range_from_obstacles/2, this.getObstacles());
+            this.speed=StaticInitConfig.SPEED_OF_ATTACKER_ON_DESTROYING_THREAT;
+            this.rrt_alg.setMax_angle((float) Math.PI / 5);
+        }else if(this.fly_mode== Attacker.FLYING_MODE && this.target_indicated_by_role.getIndex() == Threat.UAV_BASE_INDEX)
+        {
+            this.speed=StaticInitConfig.SPEED_OF_ATTACKER_IDLE;
+            this.rrt_alg.setMax_angle((float) Math.PI / 6);
+        }else if(this.fly_mode== Attacker.FLYING_MODE && this.target_indicated_by_role.getIndex() != Threat.UAV_BASE_INDEX)
+        {
+            this.speed=StaticInitConfig.SPEED_OF_ATTACKER_ON_TASK;
+            this.rrt_alg.setMax_angle((float) Math.PI / 6);
+        }
+        
+        
+        if (this.target_indicated_by_role.getIndex() == Threat.UAV_BASE_INDEX) {
+            logger.debug("find path for retunning uav");
+        } else {
+            logger.debug("find path for busy uav");
+        }
+        this.configRRT();
+        return true;
+    }
+
+    /** search the path with the planner prepared, it only touches the planner and the path of this attacker.
+     * 
+     */
+    public void searchPath() {
+        UAVPath shortest_path = null;
+        float shotest_path_length = Float.MAX_VALUE;
+        int planning_times = StaticInitConfig.rrt_planning_times_for_attacker;
+        if (this.planner_type == StaticInitConfig.RRT_STAR_PLANNER) {
+            planning_times = StaticInitConfig.rrt_star_planning_times_for_attacker;
+        }
+        boolean available_path_found = false;
+        int nums_of_trap = 0;
+        if (this.reuseRRTTree()) {
+            return;
+        }
+        if (StaticInitConfig.rrt_parallel_planning) {
+            shortest_path = this.runRRTInParallel(planning_times + 1, max_trap_times);
+        } else {
             for (int i = 0; i <= planning_times; i++) {
-                this.runRRT();
-                available_path_found = available_path_found || this.path_planned_at_current_time_step.pathReachEndPoint(this.target_indicated_by_role.getCoordinates());
-                if (!available_path_found && nums_of_trap < 10) {
+                UAVPath path_found = this.runRRT();
+                available_path_found = available_path_found || path_found.pathReachEndPoint(this.target_indicated_by_role.getCoordinates());
+                if (!available_path_found && nums_of_trap < max_trap_times) {
                     i--;
                     nums_of_trap++;
                     continue;
                 }
-                if (this.path_planned_at_current_time_step.getPath_length() < shotest_path_length) {
-                    shotest_path_length = this.path_planned_at_current_time_step.getPath_length();
-                    shortest_path = this.path_planned_at_current_time_step;
+                if (path_found.getPath_length() < shotest_path_length) {
+                    shotest_path_length = path_found.getPath_length();
+                    shortest_path = path_found;
                 }
             }
+        }
+        this.path_searched = shortest_path;
+    }
+
+    /** commit the path searched, and update the state of the attacker.
+     * 
+     */
+    public void commitPathPlan() {
+        if (this.planning_prepared) {
+            UAVPath shortest_path = this.path_searched;
             if (shortest_path != null) {
-                Point path_dest = shortest_path.getLastWaypoint();
-                if (path_dest.getX() == this.center_coordinates[0] && path_dest.getY() == this.center_coordinates[1]) {
+                int last_index = shortest_path.getWaypointNum() - 1;
+                if (shortest_path.getX(last_index) == this.center_coordinates[0] && shortest_path.getY(last_index) == this.center_coordinates[1]) {
                     stucked_times++;
                     if(this.stucked_times>this.max_stucked_times)
                     {
@@ -166,6 +244,7 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
                     stucked_times=0;
                 }
                 this.path_planned_at_current_time_step = shortest_path;
+                this.resetCurrentIndexOfPath();
             } else {
                 logger.error("null path");
             }
@@ -179,19 +258,62 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
             }
             this.setReplanned_at_current_time_step(false);
         }
+        this.planning_prepared = false;
+        this.path_searched = null;
+    }
+
+    /** replan by re-rooting the tree which the current path is generated from, instead of restarting rrt.
+     * 
+     * @return true if a path reaching the target is found
+     */
+    private boolean reuseRRTTree() {
+        if (!StaticInitConfig.rrt_reuse_tree || !StaticInitConfig.rrt_use_compact_tree || this.planner_type != StaticInitConfig.RRT_PLANNER || planned_tree_alg == null) {
+            return false;
+        }
+        if (planned_tree_alg != rrt_alg) {
+            planned_tree_alg.copySettings(rrt_alg);
+            planned_tree_alg.setCancel_flag(null);
+        }
+        UAVPath path_found = planned_tree_alg.buildCompactRRTReusingTree(this.path_planned_at_last_time_step, this.current_index_of_planned_path, center_coordinates, current_angle);
+        if (path_found == null || !path_found.pathReachEndPoint(this.target_indicated_by_role.getCoordinates())) {
+            return false;
+        }
+        rrt_tree = null;
+        this.path_searched = path_found;
+        return true;
     }
 
     /** run rrt algorithm, which is called by planpath method.
+     * The path found is not committed, so that the UI and World never see the paths of the restarts.
+     * 
+     * @return the path found
+     */
+    private UAVPath runRRT() {
+        UAVPath path_found = rrt_alg.buildPath(center_coordinates, current_angle);
+        rrt_tree = rrt_alg.getLast_tree();
+        planned_tree_alg = rrt_alg;
+        return path_found;
+    }
+
+    /** run the restarts of rrt algorithm concurrently, which is called by planpath method.
      * 
+     * @param restart_times
+     * @param max_trap_times
+     * @return the shortest path found
      */
-    private void runRRT() {
+    private UAVPath runRRTInParallel(int restart_times, int max_trap_times) {
+        UAVPath shortest_path = parallel_planner.plan(rrt_alg, restart_times, max_trap_times, center_coordinates, current_angle, this.target_indicated_by_role.getCoordinates(), StaticInitConfig.rrt_early_stop_path_ratio);
+        planned_tree_alg = parallel_planner.getBest_rrt_alg();
+        rrt_tree = planned_tree_alg == null ? null : planned_tree_alg.getLast_tree();
+        return shortest_path;
+    }
+
+    private void configRRT() {
         rrt_alg.setMax_delta_distance(this.speed);
-        rrt_alg.setObstacles(this.getObstacles());
+        rrt_alg.setObstacles(this.getObstacles(), this.kb.getObstacleIndex());
+        rrt_alg.setConflicts(this.getConflicts());
         rrt_alg.setGoal_coordinate(goal_for_each_iteration);
         rrt_alg.setInit_coordinate(center_coordinates);
-        rrt_tree = rrt_alg.buildRRT(center_coordinates, current_angle);
-        this.setPath_prefound(rrt_tree.getPath_found());
-        this.resetCurrentIndexOfPath();
     }
 
     /** reset the index of waypoint.
@@ -199,6 +321,15 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
      */
     public void resetCurrentIndexOfPath() {
         this.current_index_of_planned_path = 0;
+        this.publishFuturePath();
+    }
+
+    /** publish the path from the current waypoint as a view, which is read by getFuturePath.
+     * 
+     */
+    private void publishFuturePath() {
+        UAVPath path = this.path_planned_at_current_time_step;
+        this.future_path = path.subPath(Math.min(current_index_of_planned_path, path.getWaypointNum()));
     }
 
     /** move the attacker to the next waypoint it planned.
@@ -208,16 +339,16 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
     public boolean moveToNextWaypoint() {
         if (this.target_indicated_by_role != null) {
             current_index_of_planned_path++;
+            this.publishFuturePath();
             if (path_planned_at_current_time_step.getWaypointNum() == 0 || current_index_of_planned_path >= path_planned_at_current_time_step.getWaypointNum()) {
                 this.moved_at_last_time = false;
                 this.setNeed_to_replan(true);
                 return false;
             }
-            Point current_waypoint = this.path_planned_at_current_time_step.getWaypoint(current_index_of_planned_path);
-            float[] coordinate = current_waypoint.toFloatArray();
+            UAVPath path = this.path_planned_at_current_time_step;
             setPreviousWaypoint();
-            moveTo(coordinate[0], coordinate[1]);
-            this.current_angle = (float) current_waypoint.getYaw();
+            moveTo((float) path.getX(current_index_of_planned_path), (float) path.getY(current_index_of_planned_path));
+            this.current_angle = (float) path.getYaw(current_index_of_planned_path);
             this.moved_at_last_time = true;
             this.setNeed_to_replan(false);
             if(path_planned_at_current_time_step.getWaypointNum() == 0 || current_index_of_planned_path == path_planned_at_current_time_step.getWaypointNum())
@@ -252,6 +383,8 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
     }
 
     /** get path planning for the future timestep. This method is called by the UI, in order to rendering the future path of each attacker.
+     * The future path is a snapshot sharing the waypoints of the path planned, which is neither copied nor locked:
+     * it is published through a volatile field as one view of the path and the waypoint, only when a path is committed or the attacker moves.
      * 
      * @return future path.
      */
@@ -259,13 +392,7 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
         if (!this.isVisible()) {
             return null;
         }
-        UAVPath future_path = new UAVPath();
-        synchronized (path_planned_at_current_time_step) {
-            for (int i = current_index_of_planned_path; i < path_planned_at_current_time_step.getWaypointNum(); i++) {
-                future_path.addWaypointToEnd(path_planned_at_current_time_step.getWaypoint(i));
-            }
-        }
-        return future_path;
+        return this.future_path;
     }
 
     /** set the role of the attacker.
@@ -358,12 +485,68 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
 
     public void setPath_prefound(UAVPath path_prefound) {
         this.path_planned_at_current_time_step = path_prefound;
+        this.publishFuturePath();
+    }
+
+    /** choose the path planning algorithm of the attacker, the settings and random source of the planner are kept.
+     * 
+     * @param planner_type StaticInitConfig.RRT_PLANNER, StaticInitConfig.RRT_STAR_PLANNER or StaticInitConfig.RRT_CONNECT_PLANNER
+     */
+    public void setPlanner_type(int planner_type) {
+        if (planner_type == this.planner_type) {
+            return;
+        }
+        Random planner_random = this.rrt_alg.getRandom();
+        if (planner_type == StaticInitConfig.RRT_STAR_PLANNER) {
+            this.rrt_alg = new RRTStarAlg(this.rrt_alg);
+        } else if (planner_type == StaticInitConfig.RRT_CONNECT_PLANNER) {
+            this.rrt_alg = new RRTConnectAlg(this.rrt_alg);
+        } else {
+            this.rrt_alg = new RRTAlg(this.rrt_alg);
+        }
+        this.rrt_alg.setRandom(planner_random);
+        this.planner_type = planner_type;
+    }
+
+    public int getPlanner_type() {
+        return planner_type;
+    }
+
+    /** share the reservation table of world with the planner of the attacker.
+     *
+     * @param reservation_table
+     * @param current_time_step the time step of world when the planning starts
+     */
+    public void setReservation_table(ReservationTable reservation_table, int current_time_step) {
+        this.rrt_alg.setReservation_table(reservation_table, current_time_step);
     }
 
     public RRTTree getRrt_tree() {
         return rrt_tree;
     }
 
+    /** the compact tree built lately, which is available when rrt_use_compact_tree is enabled.
+     * 
+     * @return 
+     */
+    public CompactRRTTree getCompact_rrt_tree() {
+        if (planned_tree_alg == null) {
+            return null;
+        }
+        return planned_tree_alg.getCompact_tree();
+    }
+
+    /** the tree grown from the goal lately, which is available when the attacker plans with RRT-Connect.
+     * 
+     * @return 
+     */
+    public CompactRRTTree getCompact_goal_tree() {
+        if (planned_tree_alg instanceof RRTConnectAlg) {
+            return ((RRTConnectAlg) planned_tree_alg).getGoal_tree();
+        }
+        return null;
+    }
+
     @Override
     public ArrayList<Obstacle> getObstacles() {
         return this.kb.getObstacles();
@@ -428,7 +611,7 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
 
     private float[] genRandomHoveringGoalV1(float[] threat_location, float hover_radius, ArrayList<Obstacle> obstacles) {
         float[] random_goal_coordinate = new float[2];
-        double random_theta = Math.random() * Math.PI * 2;
+        double random_theta = random.nextDouble() * Math.PI * 2;
         random_goal_coordinate[0] = threat_location[0] + (float) Math.cos(random_theta) * hover_radius;
         random_goal_coordinate[1] = threat_location[1] + (float) Math.sin(random_theta) * hover_radius;
         boolean collisioned = true;
@@ -439,7 +622,7 @@ public class Attacker extends UAV implements KnowledgeAwareInterface {
             if (!ConflictCheckUtil.checkPointInObstacles(obstacles, random_goal_coordinate[0], random_goal_coordinate[1])) {
                 collisioned = false;
             } else {
-                random_theta = Math.random() * Math.PI * 2;
+                random_theta = random.nextDouble() * Math.PI * 2;
             }
             withinBound = BoundUtil.withinBound(random_goal_coordinate[0], random_goal_coordinate[1], World.bound_width, World.bound_height);
             logger.debug("find hovering goal for attackers");
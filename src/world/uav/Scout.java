@@ -49,6 +49,12 @@ public class Scout extends UAV {
     private int direction = 1;
     private ControlCenter control_center;
     private int conflict_avoid = 1;
+    /**
+     * buffers of the next waypoint and the goal of each move.
+     *
+     */
+    private float[] next_waypoint_buffer = new float[2];
+    private float[] goal_waypoint_buffer = new float[2];
 
     public Scout(int index, int uav_type, float[] center_coordinates, float[] base_coordinate, ControlCenter control_center, float remained_energy) {
         super(index, null, uav_type, center_coordinates,remained_energy);
@@ -73,14 +79,14 @@ public class Scout extends UAV {
             this.setVisible(false);
             return false;
         }
-        float[] next_waypoint = new float[2];
-        float[] goal_waypoint = new float[2];
+        float[] next_waypoint = this.next_waypoint_buffer;
+        float[] goal_waypoint = this.goal_waypoint_buffer;
         goal_waypoint[1] = current_y_coordinate_task;
         ArrayList<Obstacle> obstacles = this.control_center.getObstacles();
         if (direction == 1) //move to the right
         {
             goal_waypoint[0] = this.center_coordinates[0] + this.speed;
-            next_waypoint = extendTowardGoalWithDynamics(this.center_coordinates, this.current_angle, goal_waypoint, this.speed, this.max_angle);
+            next_waypoint = extendTowardGoalWithDynamics(this.center_coordinates, this.current_angle, goal_waypoint, this.speed, this.max_angle, next_waypoint);
             if (next_waypoint[0] > World.bound_width) {
                 next_waypoint[0] -= this.speed;
                 if (move_at_y_coordinate_task.size() == 0) {
@@ -103,7 +109,7 @@ public class Scout extends UAV {
         if (direction == 0)//move to the left
         {
             goal_waypoint[0] = this.center_coordinates[0] - this.speed;
-            next_waypoint = extendTowardGoalWithDynamics(this.center_coordinates, this.current_angle, goal_waypoint, this.speed, this.max_angle);
+            next_waypoint = extendTowardGoalWithDynamics(this.center_coordinates, this.current_angle, goal_waypoint, this.speed, this.max_angle, next_waypoint);
             if (next_waypoint[0] < 0) {
                 next_waypoint[0] += this.speed;
                 if (move_at_y_coordinate_task.size() == 0) {
@@ -62,7 +62,7 @@ public class UAV extends Unit {
      * @param center_coordinate_y
      */
     public void moveTo(float center_coordinate_x, float center_coordinate_y) {
-        float moved_dist=DistanceUtil.distanceBetween(this.center_coordinates, new float[]{center_coordinate_x,center_coordinate_y});
+        float moved_dist=DistanceUtil.distanceBetween(this.center_coordinates[0], this.center_coordinates[1], center_coordinate_x, center_coordinate_y);
         this.remained_energy-=moved_dist;
         uav_center.setCoordinate(center_coordinate_x, center_coordinate_y);
         uav_radar.setCoordinate(center_coordinate_x, center_coordinate_y);
@@ -79,9 +79,22 @@ public class UAV extends Unit {
      * @return 
      */
     protected float[] extendTowardGoalWithDynamics(float[] current_coordinate, double current_angle, float[] random_goal_coordinate, float max_length, double max_angle) {
+        return extendTowardGoalWithDynamics(current_coordinate, current_angle, random_goal_coordinate, max_length, max_angle, new float[2]);
+    }
+
+    /** extend Toward Goad considering the dynamics of the uav, into the given buffer.
+     * 
+     * @param current_coordinate
+     * @param current_angle
+     * @param random_goal_coordinate
+     * @param max_length
+     * @param max_angle
+     * @param new_node_coord buffer of the extended location
+     * @return the buffer
+     */
+    protected float[] extendTowardGoalWithDynamics(float[] current_coordinate, double current_angle, float[] random_goal_coordinate, float max_length, double max_angle, float[] new_node_coord) {
         double toward_goal_angle = VectorUtil.getAngleOfVectorRelativeToXCoordinate(random_goal_coordinate[0] - current_coordinate[0], random_goal_coordinate[1] - current_coordinate[1]);
         double delta_angle = VectorUtil.getBetweenAngle(toward_goal_angle, current_angle);
-        float[] new_node_coord = new float[2];
         if (delta_angle > max_angle) {
             double temp_goal_angle1 = VectorUtil.getNormalAngle(current_angle - max_angle);
             double delta_angle_1 = VectorUtil.getBetweenAngle(toward_goal_angle, temp_goal_angle1);
@@ -32,25 +32,108 @@ import util.DistanceUtil;
 import world.model.shape.Point;
 
 /** This is the data structure to maintain the path for the uav.
+ * The waypoints are packed in primitive arrays of coordinates, yaws and expected time steps, so they are accessed by index in constant time.
+ * A sub path is a view sharing the arrays of its path, the arrays are copied only when the view is changed.
+ * There is room kept before the first waypoint, so that adding waypoints to the beginning does not move the others.
  *
  * @author Yulin_Zhang
  */
 public class UAVPath implements Serializable{
 
-    private LinkedList<Point> waypoints;
+    private static final int INIT_CAPACITY = 16;
+
+    private double[] xs;
+    private double[] ys;
+    private double[] yaws;
+    private int[] expected_time_steps;
+    /**
+     * the waypoints are at first_index to first_index + waypoint_num - 1 of the arrays.
+     *
+     */
+    private int first_index;
+    private int waypoint_num = 0;
+    /**
+     * whether the arrays are shared with the path viewed, they are copied before being written.
+     *
+     */
+    private boolean view = false;
     private float path_length = 0;
+    private boolean path_length_known = true;
     
 
     public UAVPath() {
-        this.waypoints = new LinkedList<Point>();
+        allocate(INIT_CAPACITY, INIT_CAPACITY / 4);
+    }
+
+    private UAVPath(UAVPath viewed_path, int from_index, int to_index) {
+        this.xs = viewed_path.xs;
+        this.ys = viewed_path.ys;
+        this.yaws = viewed_path.yaws;
+        this.expected_time_steps = viewed_path.expected_time_steps;
+        this.first_index = viewed_path.first_index + from_index;
+        this.waypoint_num = to_index - from_index;
+        this.view = true;
+        this.path_length_known = false;
     }
 
+    /** get the waypoint at the index, a new point is created for it.
+     * 
+     * @param index
+     * @return 
+     */
     public Point getWaypoint(int index) {
-        return waypoints.get(index);
+        checkIndex(index);
+        int array_index = first_index + index;
+        Point point = new Point(xs[array_index], ys[array_index], yaws[array_index]);
+        point.setExptected_time_step(expected_time_steps[array_index]);
+        return point;
+    }
+
+    public double getX(int index) {
+        checkIndex(index);
+        return xs[first_index + index];
+    }
+
+    public double getY(int index) {
+        checkIndex(index);
+        return ys[first_index + index];
+    }
+
+    public double getYaw(int index) {
+        checkIndex(index);
+        return yaws[first_index + index];
+    }
+
+    public int getExpected_time_step(int index) {
+        checkIndex(index);
+        return expected_time_steps[first_index + index];
     }
 
     public int getWaypointNum() {
-        return this.waypoints.size();
+        return this.waypoint_num;
+    }
+
+    /** get the waypoints from from_index to to_index - 1 as a view, which shares the waypoints with this path.
+     * The view is not affected by adding waypoints to this path afterwards.
+     * 
+     * @param from_index
+     * @param to_index
+     * @return 
+     */
+    public UAVPath subPath(int from_index, int to_index) {
+        if (from_index < 0 || to_index > waypoint_num || from_index > to_index) {
+            throw new IndexOutOfBoundsException("sub path " + from_index + " to " + to_index + " of " + waypoint_num + " waypoints");
+        }
+        return new UAVPath(this, from_index, to_index);
+    }
+
+    /** get the waypoints from from_index to the end as a view.
+     * 
+     * @param from_index
+     * @return 
+     */
+    public UAVPath subPath(int from_index) {
+        return subPath(from_index, waypoint_num);
     }
 
     /**
@@ -59,13 +142,28 @@ public class UAVPath implements Serializable{
      * @param point 
      */
     public void addWaypointToEnd(Point point) {
-        if (this.waypoints.size() > 0) {
-            float length = DistanceUtil.distanceBetween(point.toFloatArray(), this.waypoints.getLast().toFloatArray());
-            this.waypoints.addLast(point);
-            this.path_length += length;
-        } else {
-            this.waypoints.add(point); //this point is origin
+        addWaypointToEnd(point.getX(), point.getY(), point.getYaw(), point.getExptected_time_step());
+    }
+
+    /**
+     * add waypoint to end and undate path length
+     * 
+     * @param x
+     * @param y
+     * @param yaw 
+     */
+    public void addWaypointToEnd(double x, double y, double yaw) {
+        addWaypointToEnd(x, y, yaw, 0);
+    }
+
+    private void addWaypointToEnd(double x, double y, double yaw, int expected_time_step) {
+        prepareForWrite(0, 1);
+        int array_index = first_index + waypoint_num;
+        if (waypoint_num > 0) {
+            this.path_length += DistanceUtil.distanceBetween((float) x, (float) y, (float) xs[array_index - 1], (float) ys[array_index - 1]);
         }
+        setWaypointAt(array_index, x, y, yaw, expected_time_step);
+        waypoint_num++;
     }
 
     /**
@@ -74,33 +172,59 @@ public class UAVPath implements Serializable{
      * @param point 
      */
     public void addWaypointToBeginning(Point point) {
-        if (this.waypoints.size() > 0) {
-            float length = DistanceUtil.distanceBetween(point.toFloatArray(), this.waypoints.getFirst().toFloatArray());
-            this.waypoints.addFirst(point);
-            this.path_length += length;
-        } else {
-            this.waypoints.add(point); //this point is origin
+        prepareForWrite(1, 0);
+        first_index--;
+        if (waypoint_num > 0) {
+            this.path_length += DistanceUtil.distanceBetween((float) point.getX(), (float) point.getY(), (float) xs[first_index + 1], (float) ys[first_index + 1]);
         }
+        setWaypointAt(first_index, point.getX(), point.getY(), point.getYaw(), point.getExptected_time_step());
+        waypoint_num++;
     }
 
     public Point getLastWaypoint() {
-        return this.waypoints.getLast();
+        return getWaypoint(waypoint_num - 1);
     }
 
+    /** copy the waypoints into a new list.
+     * 
+     * @return 
+     */
     public LinkedList<Point> getWaypointsAsLinkedList() {
+        LinkedList<Point> waypoints = new LinkedList<Point>();
+        for (int i = 0; i < waypoint_num; i++) {
+            waypoints.add(getWaypoint(i));
+        }
         return waypoints;
     }
 
+    /** replace the waypoints by the points in the list, the path length is kept as it is.
+     * 
+     * @param planned_path 
+     */
     public void setWaypoints(LinkedList<Point> planned_path) {
-        this.waypoints = planned_path;
+        allocate(Math.max(INIT_CAPACITY, planned_path.size() * 2), INIT_CAPACITY / 4);
+        view = false;
+        waypoint_num = 0;
+        for (Point point : planned_path) {
+            setWaypointAt(first_index + waypoint_num, point.getX(), point.getY(), point.getYaw(), point.getExptected_time_step());
+            waypoint_num++;
+        }
     }
 
     public float getPath_length() {
+        if (!path_length_known) {
+            path_length = 0;
+            for (int i = first_index + 1; i < first_index + waypoint_num; i++) {
+                path_length += DistanceUtil.distanceBetween((float) xs[i], (float) ys[i], (float) xs[i - 1], (float) ys[i - 1]);
+            }
+            path_length_known = true;
+        }
         return path_length;
     }
 
     public void setPath_length(float path_length) {
         this.path_length = path_length;
+        this.path_length_known = true;
     }
     
     /**
@@ -111,12 +235,59 @@ public class UAVPath implements Serializable{
      */
     public boolean pathReachEndPoint(float[] target_coord)
     {
-        float dist_to_target=DistanceUtil.distanceBetween(this.waypoints.getLast().toFloatArray(), target_coord);
-        if(dist_to_target<StaticInitConfig.SAFE_DISTANCE_FOR_TARGET)
+        int last_index = first_index + waypoint_num - 1;
+        checkIndex(waypoint_num - 1);
+        if(DistanceUtil.closerThan((float) xs[last_index], (float) ys[last_index], target_coord[0], target_coord[1], StaticInitConfig.SAFE_DISTANCE_FOR_TARGET))
         {
             return true;
         }else{
             return false;
         }
     }
+
+    private void setWaypointAt(int array_index, double x, double y, double yaw, int expected_time_step) {
+        xs[array_index] = x;
+        ys[array_index] = y;
+        yaws[array_index] = yaw;
+        expected_time_steps[array_index] = expected_time_step;
+    }
+
+    /** make sure the arrays are owned by this path, and there is room for the waypoints to add before and after.
+     * 
+     */
+    private void prepareForWrite(int num_before, int num_after) {
+        if (!path_length_known) {
+            getPath_length();
+        }
+        if (!view && first_index >= num_before && first_index + waypoint_num + num_after <= xs.length) {
+            return;
+        }
+        double[] old_xs = xs;
+        double[] old_ys = ys;
+        double[] old_yaws = yaws;
+        int[] old_expected_time_steps = expected_time_steps;
+        int old_first_index = first_index;
+        //the room before is doubled only when waypoints are added to the beginning
+        int room_before = num_before > 0 ? Math.max(INIT_CAPACITY / 4, waypoint_num) : (view ? 0 : first_index);
+        allocate(room_before + Math.max(INIT_CAPACITY, (waypoint_num + num_after) * 2), room_before);
+        System.arraycopy(old_xs, old_first_index, xs, first_index, waypoint_num);
+        System.arraycopy(old_ys, old_first_index, ys, first_index, waypoint_num);
+        System.arraycopy(old_yaws, old_first_index, yaws, first_index, waypoint_num);
+        System.arraycopy(old_expected_time_steps, old_first_index, expected_time_steps, first_index, waypoint_num);
+        view = false;
+    }
+
+    private void allocate(int capacity, int first_index) {
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.yaws = new double[capacity];
+        this.expected_time_steps = new int[capacity];
+        this.first_index = first_index;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= waypoint_num) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + waypoint_num);
+        }
+    }
 }